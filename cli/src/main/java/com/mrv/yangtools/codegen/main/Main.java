@@ -2,8 +2,8 @@ package com.mrv.yangtools.codegen.main;
 
 import java.io.*;
 import java.net.URI;
+import java.nio.channels.Channels;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
@@ -17,9 +17,12 @@ import java.util.stream.Stream;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.ParameterException;
+import com.mrv.yangtools.codegen.ModuleCache;
+import com.mrv.yangtools.codegen.impl.ShardedSwaggerWriter;
 import com.mrv.yangtools.codegen.impl.path.rfc8040.PathHandlerBuilder;
 import com.mrv.yangtools.codegen.impl.postprocessor.*;
-import com.mrv.yangtools.common.ContextHelper;
+import com.mrv.yangtools.common.FileSink;
+import com.mrv.yangtools.common.SchemaBuilder;
 import io.swagger.models.auth.BasicAuthDefinition;
 import org.opendaylight.yangtools.yang.model.api.Module;
 import org.opendaylight.yangtools.yang.model.api.ModuleIdentifier;
@@ -29,23 +32,30 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import com.beust.jcommander.Parameter;
 
+import com.mrv.yangtools.codegen.PathFilter;
 import com.mrv.yangtools.codegen.SwaggerGenerator;
 
 public class Main {
 
     private static final Logger log = LoggerFactory.getLogger(Main.class);
 
-    @Parameter(names = "-yang-dir", description = "Directory to search for YANG modules - defaults to current directory. " +
-            "Multiple dirs might be separated by system path separator")
-    public File yangDir = null;
+    @Parameter(names = "-yang-dir", description = "Directory or jar to search for YANG modules - defaults to current directory. " +
+            "Multiple dirs and jars might be separated by system path separator")
+    public File yangDir = new File(".");
 
     @Parameter(names = "-output", description = "File to generate, containing the output - defaults to stdout")
     public File output = null;
 
+    @Parameter(names = "-output-dir", description = "Directory to generate one document per module and a shared definitions document to, instead of a single output")
+    public File outputDir = null;
+
+    @Parameter(names = "-shard-by", description = "Split documents written to -output-dir by 'tag' or by path prefix 'prefix:depth' instead of by module, with an index of the shards")
+    public String shardBy = null;
+
     @Parameter(description = "List of YANG module names to generate in swagger output")
     List<String> modules = null;
 
-    @Parameter(names = "-format", description = "Output format of generated file - defaults to yaml with options of json or yaml")
+    @Parameter(names = "-format", description = "Output format of generated file - defaults to yaml with options of json, yaml, gzip_json, gzip_yaml, smile or cbor")
     public SwaggerGenerator.Format outputFormat = SwaggerGenerator.Format.YAML;
 
     @Parameter(names = "-api-version", description = "Version of api generated - default 1.0")
@@ -69,6 +79,33 @@ public class Main {
     @Parameter(names = "-strategy", description = "Use unpacking strategy")
     public SwaggerGenerator.Strategy strategy = SwaggerGenerator.Strategy.unpacking;
 
+    @Parameter(names = "-shared-definitions", description = "Emit responses and parameters repeated across operations once as top-level definitions. Default false")
+    public boolean sharedDefinitions = false;
+
+    @Parameter(names = "-deduplicate", description = "Merge definitions with the same structure into a single definition. Default false")
+    public boolean deduplicate = false;
+
+    @Parameter(names = "-remove-unused", description = "Remove definitions that are not reachable from any path. Default false")
+    public boolean removeUnused = false;
+
+    @Parameter(names = "-parallelism", description = "Number of partitions of paths and definitions serialized concurrently. Default 1")
+    public int parallelism = 1;
+
+    @Parameter(names = "-cache-dir", description = "Directory to keep paths and definitions generated for each module in, to reuse them for unchanged modules")
+    public File cacheDir = null;
+
+    @Parameter(names = "-include", description = "Comma-separated data tree paths (globs) to generate, e.g. /module:container/** - defaults to all")
+    public List<String> includePaths = new ArrayList<>();
+
+    @Parameter(names = "-exclude", description = "Comma-separated data tree paths (globs) to skip with their subtrees")
+    public List<String> excludePaths = new ArrayList<>();
+
+    @Parameter(names = "-include-module", description = "Comma-separated module names which nodes are generated - defaults to all")
+    public List<String> includeModules = new ArrayList<>();
+
+    @Parameter(names = "-exclude-module", description = "Comma-separated module names which nodes are skipped with their subtrees")
+    public List<String> excludeModules = new ArrayList<>();
+
     public String contentType = "application/yang-data+json";
 
     @Parameter(names = "-host")
@@ -96,7 +133,6 @@ public class Main {
                     .addObject(main)
                     .build()
                     .parse(args);
-            main.init();
             main.generate();
         } catch (ParameterException e) {
             System.err.println(e.getMessage());
@@ -107,16 +143,11 @@ public class Main {
         }
     }
 
-    protected void init() throws FileNotFoundException {
-        if (output != null) {
-            out = new FileOutputStream(output);
-        }
-    }
-
     protected void generate() throws IOException, ReactorException {
         final PathMatcher matcher = FileSystems.getDefault().getPathMatcher("glob:*.yang");
 
-        final SchemaContext context = buildSchemaContext(yangDir, p -> matcher.matches(p.getFileName()));
+        final SchemaBuilder schemaBuilder = schemaBuilder(yangDir, p -> matcher.matches(p.getFileName()));
+        final SchemaContext context = schemaBuilder.build();
 
         if (log.isInfoEnabled()) {
             String modulesSting = context.getModules().stream().map(ModuleIdentifier::getName).collect(Collectors.joining(", "));
@@ -142,10 +173,21 @@ public class Main {
                 .host(host)
                 .basePath(basePath)
                 .pathHandler(pathHandler)
-                .elements(map(elementType));
+                .pathFilter(pathFilter())
+                .elements(map(elementType))
+                .release(true)
+                .parallelism(parallelism);
+
+        if (cacheDir != null) {
+            generator.cache(new ModuleCache(cacheDir.toPath(), schemaBuilder.sourceHashes()));
+        }
 
         generator
-                .appendPostProcessor(new CollapseTypes());
+                .appendReplacement(new CollapseTypes());
+
+        if (deduplicate) {
+            generator.appendReplacement(new DeduplicateDefinitions());
+        }
 
         if (AuthenticationMechanism.BASIC.equals(authenticationMechanism)) {
             generator.appendPostProcessor(new AddSecurityDefinitions().withSecurityDefinition("api_sec", new BasicAuthDefinition()));
@@ -156,22 +198,71 @@ public class Main {
         }
 
         generator.appendPostProcessor(new Rfc4080PayloadWrapper());
-//        generator.appendPostProcessor(new RemoveUnusedDefinitions());
 
-        generator.generate(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (removeUnused) {
+            generator.appendPostProcessor(new RemoveUnusedDefinitions());
+        }
+
+        if (sharedDefinitions) {
+            generator.appendPostProcessor(new ExtractSharedDefinitions());
+        }
+
+        if (outputDir != null && shardBy != null) {
+            generator.generate(outputDir.toPath(), ShardedSwaggerWriter.Sharding.of(shardBy));
+            return;
+        }
+
+        if (outputDir != null) {
+            generator.generate(outputDir.toPath());
+            return;
+        }
+
+        if (output == null) {
+            generator.generate(Channels.newChannel(out));
+            return;
+        }
+
+        try (FileSink sink = FileSink.open(output.toPath())) {
+            generator.generate(sink.channel());
+            if (!sink.commit()) {
+                log.info("{} is up to date", output);
+            }
+        }
+    }
+
+    /**
+     * @return filter of the data tree paths and modules given by -include, -exclude, -include-module and -exclude-module
+     */
+    private PathFilter pathFilter() {
+        PathFilter filter = new PathFilter();
+        includePaths.forEach(filter::include);
+        excludePaths.forEach(filter::exclude);
+        includeModules.forEach(filter::includeModule);
+        excludeModules.forEach(filter::excludeModule);
+        return filter;
     }
 
     private void validate(String basePath) {
         URI.create(basePath);
     }
 
-    private SchemaContext buildSchemaContext(File dir, Predicate<Path> accept)
-            throws ReactorException {
-//        if (dir.contains(File.pathSeparator)) {
-//            return ContextHelper.getFromDir(Arrays.stream(dir.split(File.pathSeparator)).map(s -> FileSystems.getDefault().getPath(s)), accept);
-//        } else {
-            return ContextHelper.getFromDir(dir.toPath(), accept);
-//        }
+    /**
+     * @param dir directories or jars to search for YANG modules, separated by system path separator
+     * @param accept YANG sources
+     * @return builder with sources needed for the requested modules, or all sources if no module is requested
+     * @throws IOException when sources cannot be read
+     */
+    private SchemaBuilder schemaBuilder(File dir, Predicate<Path> accept)
+            throws IOException {
+        SchemaBuilder builder = new SchemaBuilder().accepts(accept);
+        builder.addAll(Arrays.stream(dir.getPath().split(File.pathSeparator))
+                .filter(s -> !s.isEmpty())
+                .map(s -> FileSystems.getDefault().getPath(s))
+                .collect(Collectors.toList()));
+        if (modules != null) {
+            builder.restrictTo(modules);
+        }
+        return builder;
     }
 
     private SwaggerGenerator.Elements[] map(ElementType elementType) {
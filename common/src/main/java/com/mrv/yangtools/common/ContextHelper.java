@@ -18,11 +18,14 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.List;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -49,7 +52,7 @@ public class ContextHelper {
     }
 
     /**
-     * Get context for yang from classpath
+     * Get context for yang from classpath, both from directories and jars
      * @param accept accept function to be passed to {@link SchemaBuilder}}
      * @return YANG context in case of parsing errors
      * @throws ReactorException in case of problem with YANG modules parsing
@@ -59,24 +62,27 @@ public class ContextHelper {
     }
 
     /**
-     * Get context for yang files from given directory that are accepted
-     * @param dirs resources directories to be considered
+     * Get context for yang files from given directories and jars that are accepted.
+     * Directories and jars are scanned concurrently, YANG entries of jars are indexed in {@link JarIndex#shared()}.
+     * Locations that are neither directories nor jars are skipped.
+     * @param dirs resources directories and jars to be considered
      * @param accept accept function to be passed to {@link SchemaBuilder}}
      * @return YANG context
      * @throws ReactorException in case of parsing errors
+     * @throws UncheckedIOException when a directory or jar cannot be read
      */
     public static SchemaContext getCtx(Stream<Path> dirs, Predicate<Path> accept) throws ReactorException {
 
         SchemaBuilder builder = new SchemaBuilder().accepts(accept);
 
-        dirs.filter(p -> Files.isDirectory(p)).forEach((path) -> {
-            try {
-                log.info("adding {}", path);
-                builder.add(path);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-        });
+        List<Path> locations = dirs.filter(p -> Files.isDirectory(p) || JarIndex.isArchive(p))
+                .peek(p -> log.info("adding {}", p))
+                .collect(Collectors.toList());
+        try {
+            builder.addAll(locations);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read YANG sources from " + locations, e);
+        }
         return builder.build();
     }
 }
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Output file written through a buffered channel to a temporary file which replaces the target on {@link #commit()}.
+ * The target is left untouched if the sink is closed without commit (e.g. the generation failed)
+ * or if the written content is the same as the content of the target, so its modification time does not change.
+ * <pre>
+ * try(FileSink sink = FileSink.open(path)) {
+ *     write(sink.channel());
+ *     sink.commit();
+ * }
+ * </pre>
+ * @author bartosz.michalik@amartus.com
+ */
+public class FileSink implements Closeable {
+    private static final Logger log = LoggerFactory.getLogger(FileSink.class);
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel file;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final MessageDigest digest;
+    private boolean committed = false;
+
+    private FileSink(Path target) throws IOException {
+        this.target = target.toAbsolutePath();
+        this.digest = sha256();
+        Files.createDirectories(this.target.getParent());
+        this.temp = this.target.resolveSibling("." + this.target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+        this.file = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    /**
+     * @param target file to be replaced on commit
+     * @return sink writing to a temporary file next to the target
+     * @throws IOException when the temporary file cannot be created
+     */
+    public static FileSink open(Path target) throws IOException {
+        return new FileSink(target);
+    }
+
+    /**
+     * @return channel writing to the sink, closing it does not commit the sink
+     */
+    public WritableByteChannel channel() {
+        return new WritableByteChannel() {
+            private boolean open = true;
+
+            @Override
+            public int write(ByteBuffer src) throws IOException {
+                if(!open) throw new IOException("channel closed");
+                return FileSink.this.write(src);
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() throws IOException {
+                open = false;
+                flush();
+            }
+        };
+    }
+
+    /**
+     * @return UTF-8 writer to the sink, closing it does not commit the sink
+     */
+    public Writer writer() {
+        return Channels.newWriter(channel(), StandardCharsets.UTF_8.newEncoder(), -1);
+    }
+
+    /**
+     * Replace target with the written content unless the content is the same.
+     * The temporary file is removed if the target cannot be replaced, the sink cannot be committed again.
+     * @return true if the target has been replaced
+     * @throws IOException in case of problem with writing or replacing the target
+     */
+    public boolean commit() throws IOException {
+        if(committed) throw new IllegalStateException("sink already committed");
+        if(!file.isOpen()) throw new IllegalStateException("sink already closed");
+        try {
+            flush();
+            file.close();
+            byte[] hash = digest.digest();
+
+            if(Files.isRegularFile(target) && Files.size(target) == Files.size(temp) && Arrays.equals(hash, hash(target))) {
+                log.debug("{} unchanged", target);
+                Files.delete(temp);
+                committed = true;
+                return false;
+            }
+
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            committed = true;
+            log.debug("{} written", target);
+            return true;
+        } finally {
+            if(!committed) close();
+        }
+    }
+
+    /**
+     * Discard the written content unless committed
+     * @throws IOException in case of problem with removing the temporary file
+     */
+    @Override
+    public void close() throws IOException {
+        if(committed) return;
+        file.close();
+        Files.deleteIfExists(temp);
+    }
+
+    private int write(ByteBuffer src) throws IOException {
+        int written = src.remaining();
+        while(src.hasRemaining()) {
+            if(!buffer.hasRemaining()) flush();
+            int length = Math.min(buffer.remaining(), src.remaining());
+            ByteBuffer part = src.duplicate();
+            part.limit(part.position() + length);
+            buffer.put(part);
+            src.position(src.position() + length);
+        }
+        return written;
+    }
+
+    private void flush() throws IOException {
+        if(!file.isOpen()) return;
+        buffer.flip();
+        digest.update(buffer.duplicate());
+        while(buffer.hasRemaining()) {
+            file.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private byte[] hash(Path path) throws IOException {
+        MessageDigest existing = sha256();
+        ByteBuffer read = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        try(FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            while(channel.read(read) >= 0) {
+                read.flip();
+                existing.update(read);
+                read.clear();
+            }
+        }
+        return existing.digest();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Index of YANG entries (<code>*.yang</code>) of jar files. A jar is scanned only if it is not indexed yet
+ * or its size or modification time has changed since it was indexed, so jars without YANG entries
+ * (e.g. most of the dependencies on a classpath) are not even opened on repeated runs.
+ * The index is kept in memory or, to be reused across runs, in a properties file, one jar per entry.
+ * @author bartosz.michalik@amartus.com
+ */
+public class JarIndex {
+    private static final Logger log = LoggerFactory.getLogger(JarIndex.class);
+    private static final String SEPARATOR = "|";
+    private static JarIndex shared;
+
+    private final Path file;
+    private final Map<String, String> entries = new ConcurrentHashMap<>();
+    private volatile boolean changed = false;
+
+    /**
+     * @param file to keep the index in, null to keep the index in memory only
+     */
+    public JarIndex(Path file) {
+        this.file = file;
+        if(file != null && Files.isRegularFile(file)) {
+            Properties properties = new Properties();
+            try(InputStream in = Files.newInputStream(file)) {
+                properties.load(in);
+                properties.stringPropertyNames().forEach(k -> entries.put(k, properties.getProperty(k)));
+            } catch (IOException | IllegalArgumentException e) {
+                log.warn("Cannot read jar index {}: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Index shared in the JVM, kept in memory unless a file is given by <code>yang2swagger.jar-index</code> system property
+     * @return shared index
+     */
+    public static synchronized JarIndex shared() {
+        if(shared == null) {
+            String location = System.getProperty("yang2swagger.jar-index");
+            shared = new JarIndex(location == null ? null : Paths.get(location));
+        }
+        return shared;
+    }
+
+    /**
+     * @param path to check
+     * @return true if path is a jar or zip file
+     */
+    public static boolean isArchive(Path path) {
+        String name = path.getFileName() == null ? "" : path.getFileName().toString().toLowerCase();
+        return (name.endsWith(".jar") || name.endsWith(".zip")) && Files.isRegularFile(path);
+    }
+
+    /**
+     * @param jar to look into
+     * @return names of YANG entries of the jar
+     * @throws IOException when the jar cannot be read
+     */
+    public List<String> entries(Path jar) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+        String key = jar.toAbsolutePath().normalize().toString();
+        String stamp = attributes.size() + SEPARATOR + attributes.lastModifiedTime().toMillis();
+
+        String indexed = entries.get(key);
+        if(indexed != null && indexed.startsWith(stamp + SEPARATOR)) {
+            String names = indexed.substring(stamp.length() + 1);
+            return names.isEmpty() ? Collections.emptyList() : Arrays.asList(names.split("\\" + SEPARATOR));
+        }
+
+        List<String> names;
+        try(FileSystem zip = FileSystems.newFileSystem(jar, (ClassLoader) null)) {
+            names = new ArrayList<>();
+            for(Path root : zip.getRootDirectories()) {
+                try(Stream<Path> files = Files.walk(root)) {
+                    names.addAll(files.filter(p -> Files.isRegularFile(p) && SchemaBuilder.yang.matches(p.getFileName()))
+                            .map(Path::toString)
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            }
+        }
+        log.debug("{} YANG entries found in {}", names.size(), jar);
+        entries.put(key, stamp + SEPARATOR + String.join(SEPARATOR, names));
+        changed = true;
+        return names;
+    }
+
+    /**
+     * Store the index if it has changed
+     * @throws IOException when the index cannot be written
+     */
+    public synchronized void save() throws IOException {
+        if(file == null || !changed) return;
+        Properties properties = new Properties();
+        properties.putAll(entries);
+        try(FileSink sink = FileSink.open(file)) {
+            try(OutputStream out = Channels.newOutputStream(sink.channel())) {
+                properties.store(out, "YANG entries of jars: size|modification time|entries");
+            }
+            sink.commit();
+        }
+        changed = false;
+    }
+}
@@ -19,14 +19,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.*;
+import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.PathMatcher;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Objects;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Yang schema context builder
@@ -39,12 +41,15 @@ public class SchemaBuilder {
 
     private static final Logger log = LoggerFactory.getLogger(SchemaBuilder.class);
     private Predicate<Path> accept;
-    private List<Path> yangs;
+    private Set<Path> yangs;
+    private final Map<Path, byte[]> contents = new ConcurrentHashMap<>();
+    private final Map<Path, YangHeader> headers = new ConcurrentHashMap<>();
+    private JarIndex jarIndex = JarIndex.shared();
 
 
     public SchemaBuilder() {
         accept = defaultYangMatcher();
-        yangs = new ArrayList<>();
+        yangs = new LinkedHashSet<>();
     }
 
     public static Predicate<Path> defaultYangMatcher() {
@@ -58,42 +63,234 @@ public class SchemaBuilder {
         return this;
     }
 
-    public SchemaBuilder add(Path path) throws IOException {
-        if(Files.isDirectory(path)) {
-            Files.walk(path)
-                    .filter(p -> Files.isRegularFile(p) && accept.test(p))
-                    .forEach(p -> {if(!yangs.contains(p)) yangs.add(p); });
-        }
-
+    /**
+     * @param jarIndex index of YANG entries of jars, null to scan each jar
+     * @return this
+     */
+    public SchemaBuilder jarIndex(JarIndex jarIndex) {
+        this.jarIndex = jarIndex;
         return this;
     }
 
+    public SchemaBuilder add(Path path) throws IOException {
+        return addAll(Collections.singletonList(path));
+    }
 
-    public SchemaContext build() throws ReactorException {
-        final CrossSourceStatementReactor.BuildAction reactor = YangInferencePipeline.RFC6020_REACTOR.newBuild();
-        SchemaContext resolveSchemaContext;
-        log.info("Inspecting all defined yangs {}", yangs);
-        final List<InputStream> yangsStreams = new ArrayList<>();
-
+    /**
+     * Add accepted sources from directories and jar (or zip) files. Locations are scanned concurrently,
+     * jars are read without extracting them. A YANG entry of a jar is identified as <code>jar/entry</code>,
+     * only <code>*.yang</code> entries are considered.
+     * @param locations directories and jars, other locations are skipped
+     * @return this
+     * @throws IOException when a location cannot be read
+     */
+    public SchemaBuilder addAll(Collection<Path> locations) throws IOException {
+        List<List<Path>> found;
         try {
-            for (Path y : yangs) {
+            found = locations.parallelStream().map(l -> {
                 try {
-                    yangsStreams.add(new FileInputStream(y.toFile()));
-                } catch (FileNotFoundException e) {
-                    throw new IllegalStateException(y + " is not a file");
+                    return scan(l);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
                 }
+            }).collect(Collectors.toList());
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        found.forEach(yangs::addAll);
+        if (jarIndex != null) {
+            jarIndex.save();
+        }
+        return this;
+    }
+
+    private List<Path> scan(Path location) throws IOException {
+        if (Files.isDirectory(location)) {
+            try(Stream<Path> files = Files.walk(location)) {
+                return files.filter(p -> Files.isRegularFile(p) && accept.test(p))
+                        .collect(Collectors.toList());
+            }
+        }
+        if (!JarIndex.isArchive(location)) {
+            log.debug("{} skipped as it is neither a directory nor a jar", location);
+            return Collections.emptyList();
+        }
+
+        JarIndex index = jarIndex == null ? new JarIndex(null) : jarIndex;
+        List<String> entries = index.entries(location);
+        List<Path> found = new ArrayList<>();
+        if (entries.isEmpty()) return found;
+        try(FileSystem zip = FileSystems.newFileSystem(location, (ClassLoader) null)) {
+            for (String entry : entries) {
+                Path path = location.resolve(entry.substring(1));
+                if (accept.test(path)) {
+                    contents.put(path, Files.readAllBytes(zip.getPath(entry)));
+                    found.add(path);
+                }
+            }
+        }
+        log.info("{} YANG sources found in {}", found.size(), location);
+        return found;
+    }
+
+
+    /**
+     * Keep only the sources needed to build the given modules: the modules, modules they import,
+     * their submodules and modules augmenting or deviating any of these, transitively.
+     * Sources are not parsed, only their headers are scanned (see {@link YangHeader}).
+     * Sources which header cannot be read are kept.
+     * @param modules names of modules to be built
+     * @return this
+     * @throws IOException when a source cannot be read
+     */
+    public SchemaBuilder restrictTo(Collection<String> modules) throws IOException {
+        load();
+        yangs.parallelStream().forEach(y -> {
+            try {
+                header(y);
+            } catch (IOException e) {
+                // reported below
             }
-            resolveSchemaContext = reactor.buildEffective(new ArrayList<InputStream>(yangsStreams));
-            return resolveSchemaContext;
-        } finally {
+        });
+        Map<String, List<YangHeader>> byName = new HashMap<>();
+        Map<String, List<YangHeader>> augmenting = new HashMap<>();
+        List<Path> unknown = new ArrayList<>();
+        for (Path y : yangs) {
+            YangHeader h;
+            try {
+                h = header(y);
+            } catch (IOException e) {
+                log.warn("Cannot scan {}: {}", y, e.getMessage());
+                unknown.add(y);
+                continue;
+            }
+            byName.computeIfAbsent(h.getName(), n -> new ArrayList<>()).add(h);
+            h.getAugmented().forEach(a -> augmenting.computeIfAbsent(a, n -> new ArrayList<>()).add(h));
+        }
+
+        Set<YangHeader> needed = new HashSet<>();
+        Deque<YangHeader> toVisit = new ArrayDeque<>();
+        for (String m : modules) {
+            List<YangHeader> found = byName.getOrDefault(m, Collections.emptyList());
+            if (found.isEmpty()) log.warn("No source of module {} found", m);
+            toVisit.addAll(found);
+        }
+        while (!toVisit.isEmpty()) {
+            YangHeader h = toVisit.pop();
+            if (!needed.add(h)) continue;
+            h.getImports().forEach((name, revision) -> toVisit.addAll(find(byName, name, revision)));
+            h.getIncludes().forEach(name -> toVisit.addAll(find(byName, name, null)));
+            if (h.getBelongsTo() != null) toVisit.addAll(find(byName, h.getBelongsTo(), null));
+            toVisit.addAll(augmenting.getOrDefault(h.getName(), Collections.emptyList()));
+        }
+
+        Set<Path> paths = needed.stream().map(YangHeader::getPath).collect(Collectors.toSet());
+        paths.addAll(unknown);
+        int all = yangs.size();
+        yangs = yangs.stream().filter(paths::contains).collect(Collectors.toCollection(LinkedHashSet::new));
+        log.info("{} of {} YANG sources needed for {}", yangs.size(), all, modules);
+        return this;
+    }
+
+    private static List<YangHeader> find(Map<String, List<YangHeader>> byName, String name, String revision) {
+        List<YangHeader> found = byName.getOrDefault(name, Collections.emptyList());
+        if (revision == null) return found;
+        List<YangHeader> matching = found.stream().filter(h -> revision.equals(h.getRevision())).collect(Collectors.toList());
+        return matching.isEmpty() ? found : matching;
+    }
 
-            yangsStreams.forEach(s -> {
+    private YangHeader header(Path path) throws IOException {
+        YangHeader header = headers.get(path);
+        if (header == null) {
+            header = YangHeader.read(path, content(path));
+            headers.put(path, header);
+        }
+        return header;
+    }
+
+    private byte[] content(Path path) throws IOException {
+        byte[] content = contents.get(path);
+        if (content == null) {
+            content = Files.readAllBytes(path);
+            contents.put(path, content);
+        }
+        return content;
+    }
+
+    /**
+     * Read content of all the sources concurrently
+     * @throws IOException when a source cannot be read
+     */
+    private void load() throws IOException {
+        try {
+            yangs.parallelStream().forEach(y -> {
                 try {
-                    s.close();
+                    content(y);
                 } catch (IOException e) {
-                    //ignore
+                    throw new UncheckedIOException(e);
                 }
             });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
     }
+
+    /**
+     * Hash content of the added YANG sources. If there are many sources of the same module
+     * (e.g. different revisions) the hash covers all of them.
+     * @return content hash by the name of module or submodule
+     * @throws IOException when a source cannot be read
+     */
+    public Map<String, String> sourceHashes() throws IOException {
+        load();
+        Map<String, Set<String>> hashes = new HashMap<>();
+        for (Path y : yangs) {
+            YangHeader header = header(y);
+            hashes.computeIfAbsent(header.getName(), n -> new TreeSet<>()).add(header.getHash());
+        }
+        return hashes.entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, e -> String.join("", e.getValue())));
+    }
+
+    /**
+     * Build schema context from the added sources. Sources are read concurrently and passed to the reactor
+     * from memory. Sources with the same content (e.g. the same file in two directories) are parsed once.
+     * @return schema context
+     * @throws ReactorException in case of parsing errors
+     * @throws UncheckedIOException when a source cannot be read or it is neither a module nor a submodule
+     */
+    public SchemaContext build() throws ReactorException {
+        final CrossSourceStatementReactor.BuildAction reactor = YangInferencePipeline.RFC6020_REACTOR.newBuild();
+        log.info("Inspecting all defined yangs {}", yangs);
+
+        long start = System.nanoTime();
+        try {
+            load();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        Map<Path, String> hashes = yangs.parallelStream()
+                .collect(Collectors.toMap(y -> y, y -> {
+                    try {
+                        return header(y).getHash();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        Set<String> unique = new HashSet<>();
+        final List<InputStream> yangsStreams = new ArrayList<>();
+        for (Path y : yangs) {
+            if (unique.add(hashes.get(y))) {
+                yangsStreams.add(new ByteArrayInputStream(contents.get(y)));
+            } else {
+                log.debug("{} skipped as its content is the same as of another source", y);
+            }
+        }
+        long loaded = System.nanoTime();
+        log.info("{} YANG sources loaded in {} ms, {} duplicates skipped", yangs.size(),
+                (loaded - start) / 1000000, yangs.size() - yangsStreams.size());
+
+        SchemaContext resolveSchemaContext = reactor.buildEffective(yangsStreams);
+        log.info("Schema context built in {} ms", (System.nanoTime() - loaded) / 1000000);
+        return resolveSchemaContext;
+    }
 }
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import java.util.Comparator;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.SortedMap;
 import java.util.stream.Collectors;
 
 /**
@@ -23,7 +24,16 @@ import java.util.stream.Collectors;
 public class SwaggerUtils {
     private static final Logger log = LoggerFactory.getLogger(SwaggerUtils.class);
 
+    /**
+     * Sort map by its keys. Map that is already sorted in natural key order is returned as is.
+     * @param toSort map
+     * @param <T> type of values
+     * @return map with keys in natural order
+     */
     public static <T> Map<String, T> sortMap(Map<String, T> toSort) {
+        if(toSort instanceof SortedMap && ((SortedMap<String, T>) toSort).comparator() == null) {
+            return toSort;
+        }
         toSort.remove(null);
 //        log.info("sort map {}", toSort);
         return toSort.entrySet().stream()
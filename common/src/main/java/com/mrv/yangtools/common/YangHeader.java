@@ -0,0 +1,302 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.common;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Header of a YANG source, read without parsing the source: name of the module or submodule,
+ * its revisions, imports, includes, the module a submodule belongs to, the modules it augments or deviates
+ * and the hash of the source content. The source is only split into statements, no statement is interpreted
+ * but the ones listed.
+ * @author bartosz.michalik@amartus.com
+ */
+public class YangHeader {
+    private final Path path;
+    private final String hash;
+    private String name;
+    private boolean submodule;
+    private String prefix;
+    private String belongsTo;
+    private final SortedSet<String> revisions = new TreeSet<>();
+    private final Map<String, String> imports = new LinkedHashMap<>();
+    private final Map<String, String> importPrefixes = new HashMap<>();
+    private final Set<String> includes = new LinkedHashSet<>();
+    private final List<String> targets = new ArrayList<>();
+
+    private YangHeader(Path path, String hash) {
+        this.path = path;
+        this.hash = hash;
+    }
+
+    /**
+     * @param path YANG source
+     * @return header of the source
+     * @throws IOException when the source cannot be read or it does not start with module or submodule statement
+     */
+    public static YangHeader read(Path path) throws IOException {
+        return read(path, Files.readAllBytes(path));
+    }
+
+    /**
+     * @param path of YANG source
+     * @param content of the source
+     * @return header of the source
+     * @throws IOException when the source does not start with module or submodule statement
+     */
+    public static YangHeader read(Path path, byte[] content) throws IOException {
+        YangHeader header = new YangHeader(path, hash(content));
+        new Tokenizer(new String(content, StandardCharsets.UTF_8)).statements(header::statement);
+        if(header.name == null) throw new IOException(path + " is neither a module nor a submodule");
+        return header;
+    }
+
+    /**
+     * @param parents keywords of enclosing statements
+     * @param keyword of the statement
+     * @param argument of the statement or null
+     */
+    private void statement(List<String[]> parents, String keyword, String argument) {
+        int depth = parents.size();
+        if(depth == 0) {
+            if(name == null && ("module".equals(keyword) || "submodule".equals(keyword))) {
+                name = argument;
+                submodule = "submodule".equals(keyword);
+            }
+            return;
+        }
+        if(name == null) return;
+        if(depth == 1) {
+            switch(keyword) {
+                case "prefix": prefix = argument; break;
+                case "belongs-to": belongsTo = argument; break;
+                case "revision": revisions.add(argument); break;
+                case "import": imports.put(argument, null); break;
+                case "include": includes.add(argument); break;
+                case "augment":
+                case "deviation":
+                    if(argument != null) targets.add(argument);
+                    break;
+                default:
+            }
+        } else if(depth == 2) {
+            String[] parent = parents.get(1);
+            if("import".equals(parent[0]) && "revision-date".equals(keyword)) {
+                imports.put(parent[1], argument);
+            } else if("import".equals(parent[0]) && "prefix".equals(keyword)) {
+                importPrefixes.put(argument, parent[1]);
+            } else if("belongs-to".equals(parent[0]) && "prefix".equals(keyword)) {
+                prefix = argument;
+            }
+        }
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    /**
+     * @return name of the module or submodule
+     */
+    public String getName() {
+        return name;
+    }
+
+    public boolean isSubmodule() {
+        return submodule;
+    }
+
+    /**
+     * @return name of the module the submodule belongs to or null for a module
+     */
+    public String getBelongsTo() {
+        return belongsTo;
+    }
+
+    /**
+     * @return the latest revision or null if there is no revision
+     */
+    public String getRevision() {
+        return revisions.isEmpty() ? null : revisions.last();
+    }
+
+    /**
+     * @return revision date of each imported module, null if revision is not specified
+     */
+    public Map<String, String> getImports() {
+        return Collections.unmodifiableMap(imports);
+    }
+
+    /**
+     * @return names of included submodules
+     */
+    public Set<String> getIncludes() {
+        return Collections.unmodifiableSet(includes);
+    }
+
+    /**
+     * @return names of other modules augmented or deviated by top-level statements of the source
+     */
+    public Set<String> getAugmented() {
+        Set<String> augmented = new LinkedHashSet<>();
+        for(String target : targets) {
+            String node = target.trim();
+            if(node.startsWith("/")) node = node.substring(1);
+            int colon = node.indexOf(':');
+            int slash = node.indexOf('/');
+            if(colon < 0 || (slash >= 0 && slash < colon)) continue;
+            String module = importPrefixes.get(node.substring(0, colon));
+            if(module != null) augmented.add(module);
+        }
+        return augmented;
+    }
+
+    /**
+     * @return hex encoded SHA-256 of the source content
+     */
+    public String getHash() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return (submodule ? "submodule " : "module ") + name + " (" + path + ")";
+    }
+
+    /**
+     * @param content of a source
+     * @return hex encoded SHA-256 of the content
+     */
+    static String hash(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for(byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    private interface StatementListener {
+        void statement(List<String[]> parents, String keyword, String argument);
+    }
+
+    /**
+     * Splits YANG source into statements, skipping comments.
+     * Quoted strings are returned without quotes, concatenated quoted strings are joined.
+     */
+    private static class Tokenizer {
+        private final String text;
+        private int pos = 0;
+        private boolean quoted;
+
+        private Tokenizer(String text) {
+            this.text = text;
+        }
+
+        /**
+         * Report each statement with keywords and arguments of its enclosing statements
+         * @param listener of statements
+         */
+        private void statements(StatementListener listener) {
+            List<String[]> parents = new ArrayList<>();
+            for(String token = next(); token != null; token = next()) {
+                if(delimiter(token, '}')) {
+                    if(!parents.isEmpty()) parents.remove(parents.size() - 1);
+                    continue;
+                }
+                if(delimiter(token, ';') || delimiter(token, '{')) continue;
+                String keyword = token;
+                String argument = null;
+                token = next();
+                if(token != null && !delimiter(token, ';') && !delimiter(token, '{')) {
+                    StringBuilder arg = new StringBuilder(token);
+                    int mark = pos;
+                    while(delimiter(next(), '+')) {
+                        String part = next();
+                        if(part == null) break;
+                        arg.append(part);
+                        mark = pos;
+                    }
+                    pos = mark;
+                    argument = arg.toString();
+                    token = next();
+                }
+                listener.statement(parents, keyword, argument);
+                if(token != null && delimiter(token, '{')) {
+                    parents.add(new String[] {keyword, argument});
+                }
+            }
+        }
+
+        private boolean delimiter(String token, char c) {
+            return token != null && !quoted && token.length() == 1 && token.charAt(0) == c;
+        }
+
+        /**
+         * @return next token or null at the end of the source
+         */
+        private String next() {
+            skip();
+            quoted = false;
+            if(pos >= text.length()) return null;
+            char c = text.charAt(pos);
+            if(c == '{' || c == '}' || c == ';') {
+                pos++;
+                return String.valueOf(c);
+            }
+            if(c == '"' || c == '\'') {
+                quoted = true;
+                int end = pos + 1;
+                while(end < text.length() && text.charAt(end) != c) {
+                    if(c == '"' && text.charAt(end) == '\\') end++;
+                    end++;
+                }
+                String token = text.substring(pos + 1, Math.min(end, text.length()));
+                pos = end + 1;
+                return token;
+            }
+            int start = pos;
+            while(pos < text.length() && !Character.isWhitespace(text.charAt(pos))
+                    && "{};".indexOf(text.charAt(pos)) < 0 && !comment()) {
+                pos++;
+            }
+            return text.substring(start, pos);
+        }
+        private void skip() {
+            while(pos < text.length()) {
+                if(Character.isWhitespace(text.charAt(pos))) {
+                    pos++;
+                } else if(text.startsWith("//", pos)) {
+                    int end = text.indexOf('\n', pos);
+                    pos = end < 0 ? text.length() : end + 1;
+                } else if(text.startsWith("/*", pos)) {
+                    int end = text.indexOf("*/", pos + 2);
+                    pos = end < 0 ? text.length() : end + 2;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private boolean comment() {
+            return text.startsWith("//", pos) || text.startsWith("/*", pos);
+        }
+    }
+}
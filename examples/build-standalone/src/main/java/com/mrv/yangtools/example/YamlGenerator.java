@@ -52,7 +52,7 @@ public class YamlGenerator {
                 //define path pruninng strategy
 //                .appendPostProcessor(new PathPrunner("/operations").withType("tapi.common.GlobalClass"))
                 //define collapse types with the same structure
-                .appendPostProcessor(new CollapseTypes())
+                .appendReplacement(new CollapseTypes())
                 .appendPostProcessor(new ShortenName("mef.sdwan.connectivity"))
                 // add basic auth definition
 //                .appendPostProcessor(new AddSecurityDefinitions().withSecurityDefinition("api_sec", new BasicAuthDefinition()))
@@ -14,6 +14,7 @@ import java.io.Writer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Consumer;
@@ -37,9 +38,13 @@ import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.google.inject.Inject;
 import com.google.inject.assistedinject.Assisted;
 import com.mrv.yangtools.codegen.impl.AnnotatingTypeConverter;
+import com.mrv.yangtools.codegen.impl.DataNodeWalker;
 import com.mrv.yangtools.codegen.impl.ModuleUtils;
 import com.mrv.yangtools.codegen.impl.OptimizingDataObjectBuilder;
 import com.mrv.yangtools.codegen.impl.UnpackingDataObjectsBuilder;
+import com.mrv.yangtools.codegen.impl.postprocessor.CombinedReplacements;
+import com.mrv.yangtools.codegen.impl.postprocessor.ReferenceGraph;
+import com.mrv.yangtools.codegen.impl.postprocessor.ReplaceDefinitionsProcessor;
 import com.mrv.yangtools.codegen.impl.postprocessor.ReplaceEmptyWithParent;
 
 import io.swagger.models.Info;
@@ -68,6 +73,7 @@ public class IoCSwaggerGenerator {
     private final Swagger target;
     private final Set<String> moduleNames;
     private final ModuleUtils moduleUtils;
+    private final List<ReplaceDefinitionsProcessor> replacements = new ArrayList<>();
     private Consumer<Swagger> postprocessor;
     private DataObjectBuilder dataObjectsBuilder;
     private ObjectMapper mapper;
@@ -130,7 +136,7 @@ public class IoCSwaggerGenerator {
         target.info(new Info());
 
         //default postprocessors
-        postprocessor = new ReplaceEmptyWithParent();
+        replacements.add(new ReplaceEmptyWithParent());
     }
 
     /**
@@ -153,9 +159,26 @@ public class IoCSwaggerGenerator {
         return this;
     }
 
+    /**
+     * Add postprocessor. Postprocessors are applied in the order they were appended, after all replacement processors.
+     * @param swaggerPostprocessor to be added
+     * @return this
+     */
     public IoCSwaggerGenerator appendPostProcessor(Consumer<Swagger> swaggerPostprocessor) {
         Objects.requireNonNull(swaggerPostprocessor);
-        postprocessor = postprocessor.andThen(swaggerPostprocessor);
+        Consumer<Swagger> guarded = ReferenceGraph.guard(swaggerPostprocessor);
+        postprocessor = postprocessor == null ? guarded : postprocessor.andThen(guarded);
+        return this;
+    }
+
+    /**
+     * Add replacement processor. Replacement processors are applied together with the default ones
+     * in a single pass (see {@link CombinedReplacements}), before any other postprocessor.
+     * @param replacement to be added
+     * @return this
+     */
+    public IoCSwaggerGenerator appendReplacement(ReplaceDefinitionsProcessor replacement) {
+        replacements.add(Objects.requireNonNull(replacement));
         return this;
     }
 
@@ -335,10 +358,18 @@ public class IoCSwaggerGenerator {
             log.warn("Generated swagger has no definitions");
             return;
         }
-        postprocessor.accept(target);
+        ReferenceGraph.attach(target);
+        try {
+            new CombinedReplacements(replacements).accept(target);
+            if(postprocessor != null) {
+                postprocessor.accept(target);
+            }
+        } finally {
+            ReferenceGraph.detach(target);
+        }
     }
 
-    private class ModuleGenerator {
+    private class ModuleGenerator implements DataNodeWalker.Visitor {
         private final org.opendaylight.yangtools.yang.model.api.Module module;
         private PathSegment pathCtx;
         private PathHandler handler;
@@ -355,7 +386,7 @@ public class IoCSwaggerGenerator {
             if(toGenerate.contains(Elements.DATA)) {
                 pathCtx = new PathSegment(ctx)
                         .withModule(module.getName());
-                module.getChildNodes().forEach(n -> generate(n, maxDepth));
+                new DataNodeWalker(this).walk(module.getChildNodes(), maxDepth);
             }
 
             if(toGenerate.contains(Elements.RPC)) {
@@ -375,15 +406,16 @@ public class IoCSwaggerGenerator {
             pathCtx = pathCtx.drop();
         }
 
-        private void generate(DataSchemaNode node, final int depth) {
+        @Override
+        public boolean enter(DataSchemaNode node, int depth) {
         	if(depth == 0) {
         		log.debug("Maxmium depth level reached, skipping {} and it's childs", node.getPath());
-        		return;
+        		return false;
         	}
         	
             if(!moduleNames.contains(moduleUtils.toModuleName(node))) {
                 log.debug("skipping {} as it is from {} module", node.getPath(), moduleUtils.toModuleName(node));
-                return;
+                return false;
             }
 
             if(node instanceof ContainerSchemaNode) {
@@ -396,10 +428,7 @@ public class IoCSwaggerGenerator {
                         .asReadOnly(!cN.isConfiguration());
 
                 handler.path(cN, pathCtx);
-                cN.getChildNodes().forEach(n -> generate(n, depth-1));
-                dataObjectsBuilder.addModel(cN, false);
-
-                pathCtx = pathCtx.drop();
+                return true;
             } else if(node instanceof ListSchemaNode) {
                 log.info("processing list statement {}", node.getQName().getLocalName() );
                 final ListSchemaNode lN = (ListSchemaNode) node;
@@ -411,15 +440,23 @@ public class IoCSwaggerGenerator {
                         .withListNode(lN);
 
                 handler.path(lN, pathCtx);
-                lN.getChildNodes().forEach(n -> generate(n, depth-1));
-                dataObjectsBuilder.addModel(lN, false);
-
-                pathCtx = pathCtx.drop();
+                return true;
             } else if (node instanceof ChoiceSchemaNode) {
                 //choice node and cases are invisible from the perspective of generating path
                 log.info("inlining choice statement {}", node.getQName().getLocalName() );
-                ((ChoiceSchemaNode) node).getCases().stream()
-                        .flatMap(_case -> _case.getChildNodes().stream()).forEach(n -> generate(n, depth-1));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void leave(DataSchemaNode node) {
+            if(node instanceof ContainerSchemaNode) {
+                dataObjectsBuilder.addModel((ContainerSchemaNode) node, false);
+                pathCtx = pathCtx.drop();
+            } else if(node instanceof ListSchemaNode) {
+                dataObjectsBuilder.addModel((ListSchemaNode) node, false);
+                pathCtx = pathCtx.drop();
             }
         }
     }
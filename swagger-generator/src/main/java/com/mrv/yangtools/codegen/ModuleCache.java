@@ -0,0 +1,394 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.jsontype.NamedType;
+import com.fasterxml.jackson.databind.jsontype.TypeIdResolver;
+import com.fasterxml.jackson.databind.jsontype.impl.TypeIdResolverBase;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mrv.yangtools.codegen.impl.path.SharedResponses;
+import com.mrv.yangtools.codegen.impl.swagger.ArrayModelImpl;
+import com.mrv.yangtools.codegen.impl.swagger.EnhancedIntegerProperty;
+import com.mrv.yangtools.common.FileSink;
+import io.swagger.models.Model;
+import io.swagger.models.Operation;
+import io.swagger.models.Response;
+import io.swagger.models.Swagger;
+import io.swagger.models.refs.GenericRef;
+import io.swagger.models.refs.RefType;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.common.QNameModule;
+import org.opendaylight.yangtools.yang.model.api.AugmentationSchema;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.opendaylight.yangtools.yang.model.api.ModuleImport;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * On-disk cache of paths and definitions generated for each module, used by {@link SwaggerGenerator} across runs.
+ * The fragment of a module is stored under a key derived from the configuration of the generator and
+ * the content of the module closure, i.e. the module, the modules it imports or includes and the modules
+ * that augment any of them, transitively. Modules with a closure that has a source of unknown content,
+ * e.g. a module read from a dependency without a hash, are not cached.
+ * Fragments are stored as generated, before postprocessing, so postprocessors work on the merged model
+ * the same way as without the cache. Models are stored field by field together with logical names of their types,
+ * as swagger deserializers do not read back all the attributes set by the generator.
+ * <pre>
+ * generator.cache(new ModuleCache(directory, schemaBuilder.sourceHashes()).configuration(options))
+ * </pre>
+ * @author bartosz.michalik@amartus.com
+ */
+public class ModuleCache {
+    private static final Logger log = LoggerFactory.getLogger(ModuleCache.class);
+    // to be changed whenever generated fragments change for the same input
+    private static final String VERSION = "3";
+    private static final ObjectMapper mapper = mapper();
+
+    private final Path directory;
+    private final Map<String, String> sourceHashes;
+    private String configuration = "";
+
+    /**
+     * @param directory to keep the fragments in
+     * @param sourceHashes content hash of YANG sources by the name of module or submodule
+     */
+    public ModuleCache(Path directory, Map<String, String> sourceHashes) {
+        this.directory = Objects.requireNonNull(directory);
+        this.sourceHashes = Objects.requireNonNull(sourceHashes);
+    }
+
+    /**
+     * @param configuration options that influence generation and are not visible to the generator,
+     *                      e.g. the version of the tool
+     * @return this
+     */
+    public ModuleCache configuration(String configuration) {
+        this.configuration = Objects.requireNonNull(configuration);
+        return this;
+    }
+
+    /**
+     * Hash sources kept in the schema context, i.e. of modules and submodules which sources are known
+     * @param ctx schema context
+     * @return content hash by the name of module or submodule
+     */
+    public static Map<String, String> sourceHashes(SchemaContext ctx) {
+        Map<String, String> hashes = new HashMap<>();
+        Deque<Module> toVisit = new ArrayDeque<>(ctx.getModules());
+        while(!toVisit.isEmpty()) {
+            Module m = toVisit.pop();
+            if(m.getSource() != null) {
+                hashes.merge(m.getName(), sha256(m.getSource()), (a, b) -> a.compareTo(b) < 0 ? a + b : b + a);
+            }
+            m.getSubmodules().forEach(toVisit::push);
+        }
+        return hashes;
+    }
+
+    /**
+     * Compute keys of the generated modules
+     * @param ctx schema context
+     * @param modules to be generated
+     * @param generator configuration of the generator
+     * @return key for each of the modules that can be cached
+     */
+    Map<Module, String> keys(SchemaContext ctx, Set<Module> modules, String generator) {
+        Map<QNameModule, Set<Module>> augmenting = augmenting(ctx);
+        Set<String> generated = modules.stream().map(Module::getName).collect(Collectors.toSet());
+
+        Map<Module, String> keys = new HashMap<>();
+        for(Module m : modules) {
+            Set<Module> closure = closure(ctx, m, augmenting);
+            Optional<Module> unknown = closure.stream().filter(c -> !sourceHashes.containsKey(c.getName())).findFirst();
+            if(unknown.isPresent()) {
+                log.debug("{} not cached, the content of {} is not known", m.getName(), unknown.get().getName());
+                continue;
+            }
+            StringBuilder key = new StringBuilder()
+                    .append(VERSION).append('\n')
+                    .append(configuration).append('\n')
+                    .append(generator).append('\n')
+                    .append(m.getName()).append('\n');
+            closure.stream()
+                    .map(c -> c.getName() + "@" + c.getQNameModule().getFormattedRevision() + " "
+                            + sourceHashes.get(c.getName())
+                            + (generated.contains(c.getName()) ? " generated" : ""))
+                    .sorted()
+                    .forEach(c -> key.append(c).append('\n'));
+            keys.put(m, sha256(key.toString()));
+        }
+        return keys;
+    }
+
+    /**
+     * @param key of the module
+     * @return fragment or null if there is no valid fragment for the key
+     */
+    Fragment load(String key) {
+        Path file = directory.resolve(key + ".smile");
+        try(InputStream in = Files.newInputStream(file)) {
+            return mapper.readValue(in, Fragment.class).shareResponses();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            log.warn("Cannot read cached fragment {}: {}", file, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param key of the module
+     * @param fragment to store
+     */
+    void store(String key, Fragment fragment) {
+        try(FileSink sink = FileSink.open(directory.resolve(key + ".smile"))) {
+            mapper.writeValue(Channels.newOutputStream(sink.channel()), fragment);
+            sink.commit();
+        } catch (IOException e) {
+            log.warn("Cannot store fragment {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * @param ctx schema context
+     * @return modules augmenting a module
+     */
+    private static Map<QNameModule, Set<Module>> augmenting(SchemaContext ctx) {
+        Map<QNameModule, Set<Module>> augmenting = new HashMap<>();
+        for(Module m : ctx.getModules()) {
+            for(AugmentationSchema a : m.getAugmentations()) {
+                Iterator<QName> target = a.getTargetPath().getPathFromRoot().iterator();
+                if(target.hasNext()) {
+                    augmenting.computeIfAbsent(target.next().getModule(), t -> new HashSet<>()).add(m);
+                }
+            }
+        }
+        return augmenting;
+    }
+
+    private static Set<Module> closure(SchemaContext ctx, Module module, Map<QNameModule, Set<Module>> augmenting) {
+        Set<Module> closure = new HashSet<>();
+        Deque<Module> toVisit = new ArrayDeque<>();
+        toVisit.push(module);
+        while(!toVisit.isEmpty()) {
+            Module m = toVisit.pop();
+            if(!closure.add(m)) continue;
+            for(ModuleImport i : m.getImports()) {
+                Module imported = ctx.findModuleByName(i.getModuleName(), i.getRevision());
+                if(imported != null) toVisit.push(imported);
+            }
+            m.getSubmodules().forEach(toVisit::push);
+            augmenting.getOrDefault(m.getQNameModule(), Collections.emptySet()).forEach(toVisit::push);
+        }
+        return closure;
+    }
+
+    private static ObjectMapper mapper() {
+        ObjectMapper mapper = new ObjectMapper(new SmileFactory());
+        mapper.configure(MapperFeature.USE_ANNOTATIONS, false);
+        mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+
+        ObjectMapper.DefaultTypeResolverBuilder typing = new ObjectMapper.DefaultTypeResolverBuilder(ObjectMapper.DefaultTyping.NON_FINAL) {
+            @Override
+            public boolean useForType(JavaType t) {
+                return !t.hasRawClass(GenericRef.class) && super.useForType(t);
+            }
+
+            @Override
+            protected TypeIdResolver idResolver(MapperConfig<?> config, JavaType baseType, Collection<NamedType> subtypes, boolean forSer, boolean forDeser) {
+                return new ModelIdResolver(baseType, config.getTypeFactory());
+            }
+        };
+        typing.init(JsonTypeInfo.Id.CUSTOM, null);
+        typing.inclusion(JsonTypeInfo.As.PROPERTY);
+        typing.typeProperty("@type");
+        mapper.setDefaultTyping(typing);
+
+        SimpleModule module = new SimpleModule();
+        module.addSerializer(GenericRef.class, new GenericRefSerializer());
+        module.addDeserializer(GenericRef.class, new GenericRefDeserializer());
+        mapper.registerModule(module);
+        return mapper;
+    }
+
+    /**
+     * Types are identified by logical names, i.e. swagger models by their names relative to <code>io.swagger.models</code>,
+     * models of the generator and numbers by their simple names and collections by their kind.
+     * No other type is written or read, so a fragment cannot instantiate arbitrary classes.
+     * Collections are read as ordered or sorted ones, so they are iterated in the written order, whatever their capacity was.
+     */
+    private static class ModelIdResolver extends TypeIdResolverBase {
+        private static final String MODELS = "io.swagger.models.";
+        private static final Map<String, Class<?>> types = new HashMap<>();
+        static {
+            types.put("list", ArrayList.class);
+            types.put("set", LinkedHashSet.class);
+            types.put("sorted-set", TreeSet.class);
+            types.put("map", LinkedHashMap.class);
+            types.put("sorted-map", TreeMap.class);
+            for(Class<?> type : Arrays.asList(Long.class, Short.class, Byte.class, Float.class, BigInteger.class, BigDecimal.class,
+                    Fragment.class, ArrayModelImpl.class, EnhancedIntegerProperty.class)) {
+                types.put(type.getSimpleName(), type);
+            }
+        }
+
+        private ModelIdResolver(JavaType baseType, TypeFactory typeFactory) {
+            super(baseType, typeFactory);
+        }
+
+        @Override
+        public String idFromValue(Object value) {
+            return idFromValueAndType(value, value.getClass());
+        }
+
+        @Override
+        public String idFromValueAndType(Object value, Class<?> type) {
+            if(SortedMap.class.isAssignableFrom(type)) return "sorted-map";
+            if(Map.class.isAssignableFrom(type)) return "map";
+            if(SortedSet.class.isAssignableFrom(type)) return "sorted-set";
+            if(Set.class.isAssignableFrom(type)) return "set";
+            if(List.class.isAssignableFrom(type)) return "list";
+            if(types.get(type.getSimpleName()) == type) return type.getSimpleName();
+            if(value instanceof Response && SharedResponses.isShared((Response) value)) return "Response";
+            if(type.getName().startsWith(MODELS)) return type.getName().substring(MODELS.length());
+            throw new IllegalArgumentException("Type not supported in cache: " + type.getName());
+        }
+
+        @Override
+        public JavaType typeFromId(String id) {
+            Class<?> type = types.get(id);
+            if(type == null) {
+                try {
+                    type = Class.forName(MODELS + id, false, Swagger.class.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalArgumentException("Unknown type " + id);
+                }
+            }
+            if(!_baseType.getRawClass().isAssignableFrom(type)) {
+                throw new IllegalArgumentException("Type " + id + " is not a " + _baseType.getRawClass().getName());
+            }
+            return _typeFactory.constructSpecializedType(_baseType, type);
+        }
+
+        @Override
+        public JsonTypeInfo.Id getMechanism() {
+            return JsonTypeInfo.Id.CUSTOM;
+        }
+    }
+
+    /**
+     * Generic reference has no default constructor, it is written as its type and reference
+     */
+    private static class GenericRefSerializer extends JsonSerializer<GenericRef> {
+        @Override
+        public void serialize(GenericRef value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartArray();
+            gen.writeString(value.getType().name());
+            gen.writeString(value.getRef());
+            gen.writeEndArray();
+        }
+    }
+
+    private static class GenericRefDeserializer extends JsonDeserializer<GenericRef> {
+        @Override
+        public GenericRef deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String[] value = p.readValueAs(String[].class);
+            return new GenericRef(RefType.valueOf(value[0]), value[1]);
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for(byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not supported", e);
+        }
+    }
+
+    /**
+     * Paths generated for a module with the definitions they use and the definitions added for the module
+     */
+    static class Fragment {
+        private Map<String, io.swagger.models.Path> paths = new TreeMap<>();
+        private Map<String, Model> definitions = new TreeMap<>();
+
+        Fragment() {}
+
+        Fragment(Map<String, io.swagger.models.Path> paths, Map<String, Model> definitions) {
+            this.paths = paths;
+            this.definitions = definitions;
+        }
+
+        /**
+         * Responses shared by the generated operations are stored as copies
+         * @return this fragment with the copies replaced by the shared responses
+         */
+        private Fragment shareResponses() {
+            paths.values().stream()
+                    .flatMap(p -> p.getOperations().stream())
+                    .map(Operation::getResponses)
+                    .filter(Objects::nonNull)
+                    .forEach(r -> r.replaceAll((code, response) -> SharedResponses.intern(response)));
+            return this;
+        }
+
+        Map<String, io.swagger.models.Path> getPaths() {
+            return paths;
+        }
+
+        /**
+         * Add paths and definitions to target
+         * @param target to merge to
+         * @return false if any of the definitions is already in the target with different content
+         */
+        boolean mergeInto(Swagger target) {
+            for(Map.Entry<String, Model> d : definitions.entrySet()) {
+                Model existing = target.getDefinitions().putIfAbsent(d.getKey(), d.getValue());
+                if(existing != null && !existing.equals(d.getValue())) {
+                    log.debug("cached definition {} differs from the generated one", d.getKey());
+                    return false;
+                }
+            }
+            paths.forEach(target::path);
+            return true;
+        }
+    }
+}
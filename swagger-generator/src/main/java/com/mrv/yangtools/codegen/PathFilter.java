@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen;
+
+import java.util.*;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Decides during generation whether a data node (or RPC) is generated, only traversed or skipped with its whole subtree.
+ * Patterns are matched against the data tree path of the node, e.g. <code>/context/topology-context/topology</code>.
+ * Each pattern segment is either <code>name</code> or <code>module:name</code>, where <code>*</code> matches any characters
+ * within a segment and <code>**</code> matches any number of segments. A pattern without wildcards is a plain schema-node path.
+ * Choices and cases are not part of the path. A pattern applies to the matched node and all its descendants.
+ * <ul>
+ *     <li>exclude - matched node and its subtree are skipped</li>
+ *     <li>include - if defined only matched nodes are generated, ancestors leading to them are only traversed</li>
+ *     <li>excluded modules - nodes defined in these modules are skipped with their subtree</li>
+ *     <li>included modules - if defined nodes from other modules are only traversed</li>
+ * </ul>
+ * @author bartosz.michalik@amartus.com
+ */
+public class PathFilter {
+
+    public enum Decision {
+        /**
+         * generate paths for the node and visit its children
+         */
+        INCLUDE,
+        /**
+         * visit children only
+         */
+        TRAVERSE,
+        /**
+         * skip the node and its children
+         */
+        SKIP
+    }
+
+    private static final String ANY = "**";
+
+    private final Map<String, List<Segment>> includes = new TreeMap<>();
+    private final Map<String, List<Segment>> excludes = new TreeMap<>();
+    private final Set<String> includedModules = new TreeSet<>();
+    private final Set<String> excludedModules = new TreeSet<>();
+
+    public PathFilter include(String pattern) {
+        includes.put(pattern, compile(pattern));
+        return this;
+    }
+
+    public PathFilter exclude(String pattern) {
+        excludes.put(pattern, compile(pattern));
+        return this;
+    }
+
+    public PathFilter includeModule(String module) {
+        Objects.requireNonNull(module);
+        includedModules.add(module);
+        return this;
+    }
+
+    public PathFilter excludeModule(String module) {
+        Objects.requireNonNull(module);
+        excludedModules.add(module);
+        return this;
+    }
+
+    public boolean isEmpty() {
+        return includes.isEmpty() && excludes.isEmpty() && includedModules.isEmpty() && excludedModules.isEmpty();
+    }
+
+    /**
+     * Make decision for the last segment of the path
+     * @param segment path segment of the node
+     * @return decision
+     */
+    public Decision decide(PathSegment segment) {
+        Objects.requireNonNull(segment);
+        if(isEmpty()) return Decision.INCLUDE;
+
+        if(excludedModules.contains(segment.getModuleName())) return Decision.SKIP;
+
+        List<PathSegment> path = segment.stream()
+                .filter(s -> s.getName() != null)
+                .collect(Collectors.toCollection(LinkedList::new));
+        Collections.reverse(path);
+
+        if(excludes.values().stream().anyMatch(p -> matches(p, 0, path, 0, false))) return Decision.SKIP;
+
+        if(!includes.isEmpty()) {
+            if(includes.values().stream().noneMatch(p -> matches(p, 0, path, 0, false))) {
+                return includes.values().stream().anyMatch(p -> matches(p, 0, path, 0, true)) ? Decision.TRAVERSE : Decision.SKIP;
+            }
+        }
+
+        if(!includedModules.isEmpty() && !includedModules.contains(segment.getModuleName())) return Decision.TRAVERSE;
+
+        return Decision.INCLUDE;
+    }
+
+    @Override
+    public String toString() {
+        return "include " + includes.keySet() + " exclude " + excludes.keySet()
+                + " include modules " + includedModules + " exclude modules " + excludedModules;
+    }
+
+    /**
+     * @param partial if true check if the path is an ancestor of a node that could be matched by the pattern
+     */
+    private static boolean matches(List<Segment> pattern, int pIdx, List<PathSegment> path, int sIdx, boolean partial) {
+        if(pIdx == pattern.size()) {
+            // pattern applies to the whole subtree
+            return !partial;
+        }
+        Segment p = pattern.get(pIdx);
+        if(p == null) {
+            return matches(pattern, pIdx + 1, path, sIdx, partial)
+                    || (sIdx < path.size() && matches(pattern, pIdx, path, sIdx + 1, partial));
+        }
+        if(sIdx == path.size()) return partial;
+        return p.matches(path.get(sIdx)) && matches(pattern, pIdx + 1, path, sIdx + 1, partial);
+    }
+
+    private static List<Segment> compile(String pattern) {
+        Objects.requireNonNull(pattern);
+        return Arrays.stream(pattern.split("/"))
+                .filter(s -> !s.isEmpty())
+                .map(s -> ANY.equals(s) ? null : new Segment(s))
+                .collect(Collectors.toList());
+    }
+
+    private static class Segment {
+        private final Pattern module;
+        private final Pattern name;
+
+        private Segment(String segment) {
+            int idx = segment.indexOf(':');
+            module = idx < 0 ? null : glob(segment.substring(0, idx));
+            name = glob(segment.substring(idx + 1));
+        }
+
+        private boolean matches(PathSegment segment) {
+            if(module != null && (segment.getModuleName() == null || !module.matcher(segment.getModuleName()).matches())) {
+                return false;
+            }
+            return name.matcher(segment.getName()).matches();
+        }
+
+        private static Pattern glob(String glob) {
+            return Pattern.compile(Arrays.stream(glob.split("\\*", -1))
+                    .map(Pattern::quote)
+                    .collect(Collectors.joining(".*")));
+        }
+    }
+}
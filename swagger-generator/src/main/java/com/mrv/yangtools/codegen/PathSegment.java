@@ -23,6 +23,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -47,6 +48,10 @@ public class PathSegment implements Iterable<PathSegment> {
 
     //local parameters
     private List<Parameter> localParams;
+    //local and parent parameters
+    private List<Parameter> allParams;
+    //tags computed for the segment
+    private List<String> tags;
     private boolean readOnly;
 
     /**
@@ -150,10 +155,32 @@ public class PathSegment implements Iterable<PathSegment> {
 
 
     public List<Parameter> params() {
-        final List<Parameter> params = parent.params();
-        params.addAll(localParameters());
+        return new ArrayList<>(sharedParams());
+    }
+
+    /**
+     * Parameters of this segment and all its parents. Computed once and shared by all operations of the segment.
+     * @return unmodifiable list of parameters
+     */
+    public List<Parameter> sharedParams() {
+        if(allParams == null) {
+            final List<Parameter> params = new ArrayList<>(parent.sharedParams());
+            params.addAll(localParameters());
+            allParams = Collections.unmodifiableList(params);
+        }
+        return allParams;
+    }
 
-        return params;
+    /**
+     * Tags of this segment. Computed once and shared by all operations of the segment.
+     * @param tagger to compute tags when not yet known
+     * @return unmodifiable list of tags
+     */
+    public List<String> tags(Function<PathSegment, List<String>> tagger) {
+        if(tags == null) {
+            tags = Collections.unmodifiableList(tagger.apply(this));
+        }
+        return tags;
     }
 
     public List<Parameter> listParams() {
@@ -164,7 +191,7 @@ public class PathSegment implements Iterable<PathSegment> {
         if(localParams == null) {
             if(isCollection()) {
                 log.debug("processing parameters from attached node");
-                final Set<String> existingNames = parent.params().stream().map(Parameter::getName).collect(Collectors.toSet());
+                final Set<String> existingNames = parent.sharedParams().stream().map(Parameter::getName).collect(Collectors.toSet());
 
                 localParams = node.getKeyDefinition().stream()
                         .map(k -> {
@@ -259,6 +286,11 @@ public class PathSegment implements Iterable<PathSegment> {
             return new ArrayList<>();
         }
 
+        @Override
+        public List<Parameter> sharedParams() {
+            return Collections.emptyList();
+        }
+
         @Override
         public List<Parameter> listParams() {
             return params();
@@ -13,15 +13,27 @@ package com.mrv.yangtools.codegen;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import com.mrv.yangtools.codegen.impl.AnnotatingTypeConverter;
+import com.mrv.yangtools.codegen.impl.DataNodeWalker;
 import com.mrv.yangtools.codegen.impl.ModuleUtils;
 import com.mrv.yangtools.codegen.impl.OptimizingDataObjectBuilder;
+import com.mrv.yangtools.codegen.impl.ParallelSwaggerWriter;
+import com.mrv.yangtools.codegen.impl.ShardedSwaggerWriter;
+import com.mrv.yangtools.codegen.impl.SplitSwaggerWriter;
+import com.mrv.yangtools.codegen.impl.StreamingSwaggerWriter;
 import com.mrv.yangtools.codegen.impl.UnpackingDataObjectsBuilder;
+import com.mrv.yangtools.codegen.impl.postprocessor.CombinedReplacements;
+import com.mrv.yangtools.codegen.impl.postprocessor.ReferenceGraph;
+import com.mrv.yangtools.codegen.impl.postprocessor.ReplaceDefinitionsProcessor;
 import com.mrv.yangtools.codegen.impl.postprocessor.ReplaceEmptyWithParent;
 import com.mrv.yangtools.codegen.impl.postprocessor.SortComplexModels;
-import com.mrv.yangtools.common.SwaggerUtils;
+import com.mrv.yangtools.codegen.impl.postprocessor.SwaggerRefHelper;
 import io.swagger.models.Info;
+import io.swagger.models.Model;
+import io.swagger.models.Operation;
 import io.swagger.models.Swagger;
 import org.opendaylight.yangtools.yang.model.api.*;
 import org.slf4j.Logger;
@@ -29,9 +41,13 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * YANG to Swagger generator
@@ -55,10 +71,21 @@ public class SwaggerGenerator {
     private final Swagger target;
     private final Set<String> moduleNames;
     private final ModuleUtils moduleUtils;
+    private final List<ReplaceDefinitionsProcessor> replacements = new ArrayList<>();
+    //paths as generated, before postprocessing
+    private final Map<String, io.swagger.models.Path> generatedPaths = new TreeMap<>();
+    //module for which each path has been generated, i.e. the one which fragment contains the path
+    private final Map<String, String> pathModules = new HashMap<>();
     private Consumer<Swagger> postprocessor;
     private DataObjectBuilder dataObjectsBuilder;
+    private Strategy strategy;
+    private ModuleCache cache;
     private ObjectMapper mapper;
+    private Format format;
+    private boolean release = false;
+    private int parallelism = 1;
     private int maxDepth = Integer.MAX_VALUE;
+    private PathFilter pathFilter = new PathFilter();
 
 
     private Set<Elements> toGenerate;
@@ -79,7 +106,67 @@ public class SwaggerGenerator {
     }
 
 
-    public enum Format {YAML, JSON}
+    public enum Format {
+        YAML("yaml", false, true), JSON("json", false, true),
+        GZIP_YAML("yaml.gz", true, false), GZIP_JSON("json.gz", true, false),
+        SMILE("smile", false, false), CBOR("cbor", false, false);
+
+        private final String extension;
+        private final boolean compressed;
+        private final boolean text;
+
+        Format(String extension, boolean compressed, boolean text) {
+            this.extension = extension;
+            this.compressed = compressed;
+            this.text = text;
+        }
+
+        /**
+         * @return file extension
+         */
+        public String extension() {
+            return extension;
+        }
+
+        /**
+         * @return true if output is compressed with GZIP
+         */
+        public boolean isCompressed() {
+            return compressed;
+        }
+
+        /**
+         * @return true if output can be written with a {@link Writer}
+         */
+        public boolean isText() {
+            return text;
+        }
+
+        /**
+         * @return mapper for the format, compression is not part of the mapper
+         */
+        public ObjectMapper mapper() {
+            ObjectMapper mapper;
+            switch (this) {
+                case YAML:
+                case GZIP_YAML:
+                    mapper = new ObjectMapper(new YAMLFactory());
+                    break;
+                case SMILE:
+                    mapper = new ObjectMapper(new SmileFactory());
+                    break;
+                case CBOR:
+                    mapper = new ObjectMapper(new CBORFactory());
+                    break;
+                case JSON:
+                case GZIP_JSON:
+                default:
+                    mapper = new ObjectMapper(new JsonFactory());
+            }
+            mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+            return mapper;
+        }
+    }
 
     public enum Elements {
         /**
@@ -124,6 +211,9 @@ public class SwaggerGenerator {
         this.ctx = ctx;
         this.modules = modulesToGenerate;
         target = new Swagger();
+        // kept sorted while generated, so no sorting is required when written
+        target.setDefinitions(new TreeMap<>());
+        target.setPaths(generatedPaths);
         converter = new AnnotatingTypeConverter(ctx);
         moduleUtils = new ModuleUtils(ctx);
         this.moduleNames = modulesToGenerate.stream().map(ModuleIdentifier::getName).collect(Collectors.toSet());
@@ -135,7 +225,7 @@ public class SwaggerGenerator {
 
         pathHandlerBuilder = new com.mrv.yangtools.codegen.impl.path.rfc8040.PathHandlerBuilder();
         //default postprocessors
-        postprocessor = new ReplaceEmptyWithParent();
+        replacements.add(new ReplaceEmptyWithParent());
     }
 
     /**
@@ -160,9 +250,29 @@ public class SwaggerGenerator {
         return this;
     }
 
+    /**
+     * Add postprocessor. Postprocessors are applied in the order they were appended,
+     * after all replacement processors (see {@link #appendReplacement(ReplaceDefinitionsProcessor)}).
+     *
+     * @param swaggerPostprocessor to be added
+     * @return this
+     */
     public SwaggerGenerator appendPostProcessor(Consumer<Swagger> swaggerPostprocessor) {
         Objects.requireNonNull(swaggerPostprocessor);
-        postprocessor = postprocessor.andThen(swaggerPostprocessor);
+        Consumer<Swagger> guarded = ReferenceGraph.guard(swaggerPostprocessor);
+        postprocessor = postprocessor == null ? guarded : postprocessor.andThen(guarded);
+        return this;
+    }
+
+    /**
+     * Add replacement processor. Replacement processors are applied in the order they were appended,
+     * together with the default ones in a single pass (see {@link CombinedReplacements}), before any other postprocessor.
+     *
+     * @param replacement to be added
+     * @return this
+     */
+    public SwaggerGenerator appendReplacement(ReplaceDefinitionsProcessor replacement) {
+        replacements.add(Objects.requireNonNull(replacement));
         return this;
     }
 
@@ -174,6 +284,7 @@ public class SwaggerGenerator {
      */
     public SwaggerGenerator strategy(Strategy strategy) {
         Objects.requireNonNull(strategy);
+        this.strategy = strategy;
 
         switch (strategy) {
             case optimizing:
@@ -204,19 +315,12 @@ public class SwaggerGenerator {
     /**
      * Output format
      *
-     * @param f YAML or JSON
+     * @param f YAML or JSON, optionally compressed, or binary SMILE or CBOR
      * @return itself
      */
     public SwaggerGenerator format(Format f) {
-        switch (f) {
-            case YAML:
-                mapper = new ObjectMapper(new YAMLFactory());
-                break;
-            case JSON:
-            default:
-                mapper = new ObjectMapper(new JsonFactory());
-        }
-        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        format = f;
+        mapper = f.mapper();
         return this;
     }
 
@@ -267,6 +371,31 @@ public class SwaggerGenerator {
         return this;
     }
 
+    /**
+     * Release paths and definitions of the generated model as soon as they are written,
+     * which lowers memory required to write big documents. The model is empty after {@link #generate(Writer)}.
+     *
+     * @param release written parts of the model
+     * @return this
+     */
+    public SwaggerGenerator release(boolean release) {
+        this.release = release;
+        return this;
+    }
+
+    /**
+     * Serialize paths and definitions concurrently when writing to a channel (see {@link #generate(WritableByteChannel)}).
+     * The output is the same as written sequentially.
+     *
+     * @param parallelism number of partitions of paths and definitions serialized at once, 1 to write sequentially
+     * @return this
+     */
+    public SwaggerGenerator parallelism(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism has to be positive");
+        this.parallelism = parallelism;
+        return this;
+    }
+
     /**
      * Add max depth level during walk through module node tree
      *
@@ -278,6 +407,30 @@ public class SwaggerGenerator {
         return this;
     }
 
+    /**
+     * Filter nodes during walk through module node tree. Skipped subtrees are neither traversed nor converted.
+     *
+     * @param pathFilter to be used
+     * @return this
+     */
+    public SwaggerGenerator pathFilter(PathFilter pathFilter) {
+        Objects.requireNonNull(pathFilter);
+        this.pathFilter = pathFilter;
+        return this;
+    }
+
+    /**
+     * Reuse paths and definitions generated for modules in previous runs. Only modules which closure
+     * or configuration has changed since are generated, see {@link ModuleCache}.
+     *
+     * @param cache of generated modules
+     * @return this
+     */
+    public SwaggerGenerator cache(ModuleCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
     /**
      * Run Swagger generation for configured modules. Write result to target. The file format
      * depends on configured {@link SwaggerGenerator.Format}
@@ -287,15 +440,96 @@ public class SwaggerGenerator {
      */
     public void generate(Writer target) throws IOException {
         if (target == null) throw new NullPointerException();
+        if (!format.isText()) {
+            throw new IllegalStateException(format + " cannot be written as text, generate to a channel instead");
+        }
 
-        Swagger result = generate();
+        // paths and definitions are written in sorted order
+        new StreamingSwaggerWriter(mapper, release).write(generateSorted(), target);
+    }
 
-        new SortComplexModels().accept(result);
+    /**
+     * Run Swagger generation for configured modules. Write result to target, text formats in UTF-8.
+     * Paths and definitions are serialized concurrently if {@link #parallelism(int)} is configured.
+     *
+     * @param target channel
+     * @throws IOException when problem with writing
+     */
+    public void generate(WritableByteChannel target) throws IOException {
+        if (target == null) throw new NullPointerException();
 
-        result.setDefinitions(SwaggerUtils.sortMap(result.getDefinitions()));
-        result.setPaths(SwaggerUtils.sortMap(result.getPaths()));
+        Swagger result = generateSorted();
+        WritableByteChannel out = format.isCompressed() ?
+                Channels.newChannel(new GZIPOutputStream(Channels.newOutputStream(target), 1 << 16)) : target;
+        if (parallelism > 1) {
+            new ParallelSwaggerWriter(mapper, release, parallelism).write(result, out);
+        } else {
+            new StreamingSwaggerWriter(mapper, release).write(result, Channels.newOutputStream(out));
+        }
+    }
 
-        mapper.writeValue(target, result);
+    /**
+     * Run Swagger generation for configured modules. Write one document per module with paths of that module
+     * and a shared document with definitions to the directory. Paths of nodes augmenting another module
+     * belong to the augmenting module. Documents are written only if changed.
+     * The file extension depends on configured {@link SwaggerGenerator.Format}
+     *
+     * @param directory target directory
+     * @return all documents
+     * @throws IOException when problem with writing
+     */
+    public List<java.nio.file.Path> generate(java.nio.file.Path directory) throws IOException {
+        if (directory == null) throw new NullPointerException();
+
+        Swagger result = generateSorted();
+        return new SplitSwaggerWriter(mapper, format.extension())
+                .compressed(format.isCompressed())
+                .write(result, pathOwners(result), directory);
+    }
+
+    /**
+     * Path belongs to the module of its last segment, which is the last tag of its operations.
+     * Paths without such a tag belong to the module they have been generated for.
+     *
+     * @param swagger generated
+     * @return module for each path
+     */
+    private Map<String, String> pathOwners(Swagger swagger) {
+        Map<String, String> owners = new HashMap<>();
+        swagger.getPaths().forEach((name, path) -> {
+            String owner = path.getOperations().stream()
+                    .map(Operation::getTags)
+                    .filter(tags -> tags != null && !tags.isEmpty())
+                    .map(tags -> tags.get(tags.size() - 1))
+                    .filter(moduleNames::contains)
+                    .findFirst().orElse(pathModules.get(name));
+            if (owner != null) owners.put(name, owner);
+        });
+        return owners;
+    }
+
+    /**
+     * Run Swagger generation for configured modules. Write paths assigned to shards as separate documents,
+     * each with definitions reachable from its paths, and an index of the shards to the directory.
+     * Documents are written only if changed.
+     *
+     * @param directory target directory
+     * @param sharding assignment of paths to shards
+     * @return all documents
+     * @throws IOException when problem with writing
+     */
+    public List<java.nio.file.Path> generate(java.nio.file.Path directory, ShardedSwaggerWriter.Sharding sharding) throws IOException {
+        if (directory == null) throw new NullPointerException();
+
+        return new ShardedSwaggerWriter(mapper, format.extension(), sharding)
+                .compressed(format.isCompressed())
+                .write(generateSorted(), directory);
+    }
+
+    private Swagger generateSorted() {
+        Swagger result = generate();
+        new SortComplexModels().accept(result);
+        return result;
     }
 
 
@@ -318,13 +552,13 @@ public class SwaggerGenerator {
             if (m.getDescription() != null && !m.getDescription().isEmpty()) {
                 mDescs.add(m.getDescription());
             }
-            dataObjectsBuilder.processModule(m);
-
         });
-        //initialize plugable path handler
-        pathHandlerBuilder.configure(ctx, target, dataObjectsBuilder);
 
-        modules.forEach(m -> new ModuleGenerator(m).generate());
+        if (cache == null) {
+            generateModules(Collections.emptyMap());
+        } else {
+            generateCached(cache);
+        }
 
         // update info with module names and descriptions
         String modules = mNames.stream().collect(Collectors.joining(","));
@@ -342,6 +576,100 @@ public class SwaggerGenerator {
         return target;
     }
 
+    /**
+     * Generate modules, reusing the fragments of the modules found in the cache
+     * and storing the fragments of the generated ones.
+     *
+     * @param cache of generated modules
+     */
+    private void generateCached(ModuleCache cache) {
+        Map<org.opendaylight.yangtools.yang.model.api.Module, String> keys = cache.keys(ctx, modules, configuration());
+        Map<org.opendaylight.yangtools.yang.model.api.Module, ModuleCache.Fragment> cached = keys.entrySet().parallelStream()
+                .map(e -> new AbstractMap.SimpleEntry<>(e.getKey(), cache.load(e.getValue())))
+                .filter(e -> e.getValue() != null)
+                .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+        log.info("{} of {} modules found in the cache", cached.size(), modules.size());
+
+        Map<org.opendaylight.yangtools.yang.model.api.Module, Set<String>> added = generateModules(cached);
+        if (added == null) {
+            log.warn("Cached modules are not consistent with the generated ones, generating all modules");
+            generatedPaths.clear();
+            pathModules.clear();
+            target.getDefinitions().clear();
+            strategy(strategy);
+            added = generateModules(Collections.emptyMap());
+        }
+
+        Map<String, Model> definitions = target.getDefinitions();
+        Map<String, Map<String, io.swagger.models.Path>> byModule = new HashMap<>();
+        pathModules.forEach((p, m) -> byModule.computeIfAbsent(m, x -> new TreeMap<>()).put(p, generatedPaths.get(p)));
+        added.entrySet().parallelStream().filter(e -> keys.containsKey(e.getKey())).forEach(e -> {
+            Map<String, io.swagger.models.Path> paths = byModule.getOrDefault(e.getKey().getName(), new TreeMap<>());
+
+            Map<String, Model> used = new TreeMap<>();
+            SwaggerRefHelper.getReachable(Stream.concat(e.getValue().stream(),
+                    paths.values().stream().flatMap(p -> p.getOperations().stream()).flatMap(SwaggerRefHelper::getUses)),
+                    definitions).forEach(d -> used.put(d, definitions.get(d)));
+            cache.store(keys.get(e.getKey()), new ModuleCache.Fragment(paths, used));
+        });
+    }
+
+    /**
+     * Generate paths and definitions for modules unless already generated
+     *
+     * @param generated fragments of modules generated before
+     * @return definitions added for each of the generated modules or null if a generated fragment
+     * does not match the content generated for the other modules
+     */
+    private Map<org.opendaylight.yangtools.yang.model.api.Module, Set<String>> generateModules(
+            Map<org.opendaylight.yangtools.yang.model.api.Module, ModuleCache.Fragment> generated) {
+        modules.forEach(dataObjectsBuilder::processModule);
+        //initialize plugable path handler
+        pathHandlerBuilder.configure(ctx, target, dataObjectsBuilder);
+
+        Map<org.opendaylight.yangtools.yang.model.api.Module, Set<String>> added = new HashMap<>();
+        for (org.opendaylight.yangtools.yang.model.api.Module m : modules) {
+            ModuleCache.Fragment fragment = generated.get(m);
+            if (fragment != null) {
+                // fragments are merged in the generation order, so the modules generated later see the same definitions
+                if (!fragment.mergeInto(target)) return null;
+                fragment.getPaths().keySet().forEach(p -> pathModules.putIfAbsent(p, m.getName()));
+                continue;
+            }
+            Set<String> existing = new HashSet<>(target.getDefinitions().keySet());
+            new ModuleGenerator(m).generate();
+            generatedPaths.keySet().forEach(p -> pathModules.putIfAbsent(p, m.getName()));
+            added.put(m, target.getDefinitions().keySet().stream().filter(d -> !existing.contains(d)).collect(Collectors.toSet()));
+        }
+        return added;
+    }
+
+    /**
+     * @return configuration of the generator that influences generated paths and definitions
+     */
+    private String configuration() {
+        return String.join("\n",
+                String.valueOf(target.getHost()), String.valueOf(target.getBasePath()),
+                String.valueOf(target.getConsumes()), String.valueOf(target.getProduces()),
+                new TreeSet<>(toGenerate).toString(), String.valueOf(maxDepth), String.valueOf(strategy),
+                describe(pathHandlerBuilder),
+                pathHandlerBuilder.getTagGenerators().stream().map(SwaggerGenerator::describe).sorted().collect(Collectors.toList()).toString(),
+                pathFilter.toString());
+    }
+
+    /**
+     * @param setting of the generator
+     * @return description of the setting or its class name if it cannot describe itself
+     */
+    private static String describe(Object setting) {
+        try {
+            if(setting.getClass().getMethod("toString").getDeclaringClass() != Object.class) return setting.toString();
+        } catch (NoSuchMethodException e) {
+            // cannot happen, every object has toString
+        }
+        return setting.getClass().getName();
+    }
+
     /**
      * Replace empty definitions with their parents.
      * Sort models (ref models first)
@@ -353,10 +681,18 @@ public class SwaggerGenerator {
             log.warn("Generated swagger has no definitions");
             return;
         }
-        postprocessor.accept(target);
+        ReferenceGraph.attach(target);
+        try {
+            new CombinedReplacements(replacements).accept(target);
+            if(postprocessor != null) {
+                postprocessor.accept(target);
+            }
+        } finally {
+            ReferenceGraph.detach(target);
+        }
     }
 
-    private class ModuleGenerator {
+    private class ModuleGenerator implements DataNodeWalker.Visitor {
         private final org.opendaylight.yangtools.yang.model.api.Module module;
         private PathSegment pathCtx;
         private PathHandler handler;
@@ -373,7 +709,7 @@ public class SwaggerGenerator {
             if (toGenerate.contains(Elements.DATA)) {
                 pathCtx = new PathSegment(ctx)
                         .withModule(module.getName());
-                module.getChildNodes().forEach(n -> generate(n, maxDepth));
+                new DataNodeWalker(this).walk(module.getChildNodes(), maxDepth);
             }
 
             if(toGenerate.contains(Elements.RPC)) {
@@ -388,20 +724,25 @@ public class SwaggerGenerator {
                         .withName(rpc.getQName().getLocalName())
                         .withModule(module.getName());
 
-            handler.path(rpc, pathCtx);
+            if(pathFilter.decide(pathCtx) == PathFilter.Decision.INCLUDE) {
+                handler.path(rpc, pathCtx);
+            } else {
+                log.debug("skipping rpc {} filtered out", rpc.getQName());
+            }
 
             pathCtx = pathCtx.drop();
         }
 
-        private void generate(DataSchemaNode node, final int depth) {
+        @Override
+        public boolean enter(DataSchemaNode node, int depth) {
             if (depth == 0) {
                 log.debug("Maxmium depth level reached, skipping {} and it's childs", node.getPath());
-                return;
+                return false;
             }
 
             if (!moduleNames.contains(moduleUtils.toModuleName(node))) {
                 log.debug("skipping {} as it is from {} module", node.getPath(), moduleUtils.toModuleName(node));
-                return;
+                return false;
             }
 
             if (node instanceof ContainerSchemaNode) {
@@ -413,11 +754,7 @@ public class SwaggerGenerator {
                         .withModule(moduleUtils.toModuleName(node))
                         .asReadOnly(!cN.isConfiguration());
 
-                handler.path(cN, pathCtx);
-                cN.getChildNodes().forEach(n -> generate(n, depth - 1));
-                dataObjectsBuilder.addModel(cN, false);
-
-                pathCtx = pathCtx.drop();
+                return path(cN);
             } else if (node instanceof ListSchemaNode) {
                 log.info("processing list statement {}", node.getQName().getLocalName());
                 final ListSchemaNode lN = (ListSchemaNode) node;
@@ -428,16 +765,41 @@ public class SwaggerGenerator {
                         .asReadOnly(!lN.isConfiguration())
                         .withListNode(lN);
 
-                handler.path(lN, pathCtx);
-                lN.getChildNodes().forEach(n -> generate(n, depth - 1));
-                dataObjectsBuilder.addModel(lN, false);
-
-                pathCtx = pathCtx.drop();
+                return path(lN);
             } else if (node instanceof ChoiceSchemaNode) {
                 //choice node and cases are invisible from the perspective of generating path
                 log.info("inlining choice statement {}", node.getQName().getLocalName());
-                ((ChoiceSchemaNode) node).getCases().stream()
-                        .flatMap(_case -> _case.getChildNodes().stream()).forEach(n -> generate(n, depth - 1));
+                return true;
+            }
+            return false;
+        }
+
+        private boolean path(DataSchemaNode node) {
+            final PathFilter.Decision decision = pathFilter.decide(pathCtx);
+            if (decision == PathFilter.Decision.SKIP) {
+                log.debug("skipping {} and it's childs filtered out", node.getPath());
+                pathCtx = pathCtx.drop();
+                return false;
+            }
+
+            if (decision == PathFilter.Decision.INCLUDE) {
+                if (node instanceof ContainerSchemaNode) {
+                    handler.path((ContainerSchemaNode) node, pathCtx);
+                } else {
+                    handler.path((ListSchemaNode) node, pathCtx);
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void leave(DataSchemaNode node) {
+            if (node instanceof ContainerSchemaNode) {
+                dataObjectsBuilder.addModel((ContainerSchemaNode) node, false);
+                pathCtx = pathCtx.drop();
+            } else if (node instanceof ListSchemaNode) {
+                dataObjectsBuilder.addModel((ListSchemaNode) node, false);
+                pathCtx = pathCtx.drop();
             }
         }
     }
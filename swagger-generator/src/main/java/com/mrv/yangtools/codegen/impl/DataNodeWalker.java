@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl;
+
+import org.opendaylight.yangtools.yang.model.api.ChoiceSchemaNode;
+import org.opendaylight.yangtools.yang.model.api.DataNodeContainer;
+import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
+
+import java.util.*;
+
+/**
+ * Depth-first walk through YANG data tree with an explicit stack, thus deep trees do not consume native stack.
+ * The visitor is informed when node is entered (pre-order) and, if it decided to visit its children, when node is left (post-order).
+ * Children of a choice are the children of all its cases. Each walk keeps its own stack, so independent subtrees
+ * can be walked separately.
+ * @author bartosz.michalik@amartus.com
+ */
+public class DataNodeWalker {
+
+    public interface Visitor {
+        /**
+         * @param node entered node
+         * @param depth remaining depth for the node
+         * @return true if children of the node should be visited
+         */
+        boolean enter(DataSchemaNode node, int depth);
+
+        /**
+         * Called after all children of the node has been visited
+         * @param node left node
+         */
+        void leave(DataSchemaNode node);
+    }
+
+    private final Visitor visitor;
+
+    public DataNodeWalker(Visitor visitor) {
+        Objects.requireNonNull(visitor);
+        this.visitor = visitor;
+    }
+
+    /**
+     * Walk through nodes and their descendants
+     * @param nodes to start with
+     * @param depth passed to the visitor for the top level nodes, decreased by one on each level
+     */
+    public void walk(Collection<? extends DataSchemaNode> nodes, int depth) {
+        final Deque<Frame> stack = new ArrayDeque<>();
+        stack.push(new Frame(null, depth, nodes.iterator()));
+
+        while(!stack.isEmpty()) {
+            final Frame current = stack.peek();
+            if(current.children.hasNext()) {
+                DataSchemaNode child = current.children.next();
+                if(visitor.enter(child, current.depth)) {
+                    stack.push(new Frame(child, current.depth - 1, children(child).iterator()));
+                }
+            } else {
+                stack.pop();
+                if(current.node != null) {
+                    visitor.leave(current.node);
+                }
+            }
+        }
+    }
+
+    private static Collection<? extends DataSchemaNode> children(DataSchemaNode node) {
+        if(node instanceof ChoiceSchemaNode) {
+            List<DataSchemaNode> children = new ArrayList<>();
+            ((ChoiceSchemaNode) node).getCases().forEach(c -> children.addAll(c.getChildNodes()));
+            return children;
+        }
+        if(node instanceof DataNodeContainer) {
+            return ((DataNodeContainer) node).getChildNodes();
+        }
+        return Collections.emptyList();
+    }
+
+    private static class Frame {
+        private final DataSchemaNode node;
+        private final int depth;
+        private final Iterator<? extends DataSchemaNode> children;
+
+        private Frame(DataSchemaNode node, int depth, Iterator<? extends DataSchemaNode> children) {
+            this.node = node;
+            this.depth = depth;
+            this.children = children;
+        }
+    }
+}
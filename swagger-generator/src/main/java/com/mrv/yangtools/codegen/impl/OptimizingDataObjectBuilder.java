@@ -51,6 +51,11 @@ public class OptimizingDataObjectBuilder extends AbstractDataObjectBuilder {
 
     private static final Predicate<Map<?,?>> hasProperties = hm -> hm != null && !hm.isEmpty();
 
+    // augmentation models are named by position, so the order must not depend on the iteration order of the schema
+    private static final Comparator<AugmentationSchema> augmentationOrder = Comparator
+            .comparing((AugmentationSchema a) -> a.getChildNodes().stream().map(c -> c.getQName().toString()).sorted().collect(Collectors.joining(",")))
+            .thenComparing(a -> String.valueOf(a.getTargetPath()));
+
     public OptimizingDataObjectBuilder(SchemaContext ctx, Swagger swagger, TypeConverter converter) {
         super(ctx, swagger, converter);
         groupings = new HashMap<>();
@@ -326,8 +331,8 @@ public class OptimizingDataObjectBuilder extends AbstractDataObjectBuilder {
             modelName = modelName.substring(lastSegment);
 
             log.debug("processing augmentations for {}", node.getQName().getLocalName());
-            //TODO order models
-            List<Model> models = augmentations.apply(node).stream().map(this::fromAugmentation).collect(Collectors.toList());
+            List<Model> models = augmentations.apply(node).stream().sorted(augmentationOrder)
+                    .map(this::fromAugmentation).collect(Collectors.toList());
 
             ComposedModel augmented = new ComposedModel();
             if(model instanceof ComposedModel) {
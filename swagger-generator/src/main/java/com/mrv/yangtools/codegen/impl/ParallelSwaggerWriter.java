@@ -0,0 +1,267 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.swagger.models.Model;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Writes swagger document with paths and definitions serialized concurrently.
+ * Sorted keys of paths and definitions are partitioned into ranges, each range is serialized into its own buffer
+ * with its own generator, and the buffers are written to the channel in order, as soon as they are ready.
+ * At most <code>parallelism</code> ranges are serialized at once, so only their buffers are kept in memory.
+ * The rest of the document is serialized with placeholder entries which are replaced by the ranges.
+ * The output is the same as of {@link StreamingSwaggerWriter}. Only compact JSON and YAML are written concurrently,
+ * for other configurations of the mapper the document is written by {@link StreamingSwaggerWriter}.
+ * @author bartosz.michalik@amartus.com
+ */
+public class ParallelSwaggerWriter {
+    private static final Logger log = LoggerFactory.getLogger(ParallelSwaggerWriter.class);
+    private static final String MARKER = "chunk" + UUID.randomUUID().toString().replace("-", "");
+    private static final String PATHS_MARKER = MARKER + "-paths";
+    private static final String DEFINITIONS_MARKER = MARKER + "-definitions";
+    private static final String ENTRIES = "entries";
+    private static final int MIN_PARTITION = 64;
+
+    private final ObjectMapper mapper;
+    private final ObjectMapper skeletonMapper;
+    private final boolean release;
+    private final int parallelism;
+    private final boolean yaml;
+
+    /**
+     * @param mapper configured for the output format, it is not modified
+     * @param release paths and definitions once they are serialized
+     * @param parallelism number of partitions serialized at once
+     */
+    public ParallelSwaggerWriter(ObjectMapper mapper, boolean release, int parallelism) {
+        if(parallelism < 1) throw new IllegalArgumentException("parallelism has to be positive");
+        this.mapper = mapper.copy();
+        this.skeletonMapper = mapper.copy();
+        this.skeletonMapper.addMixInAnnotations(Swagger.class, SkeletonMixIn.class);
+        this.release = release;
+        this.parallelism = parallelism;
+        this.yaml = mapper.getFactory() instanceof YAMLFactory;
+    }
+
+    /**
+     * Write swagger to target, text formats in UTF-8. The target is closed afterwards.
+     * @param swagger to write
+     * @param target channel
+     * @throws IOException when problem with writing
+     */
+    public void write(Swagger swagger, WritableByteChannel target) throws IOException {
+        boolean json = JsonFactory.FORMAT_NAME_JSON.equals(mapper.getFactory().getFormatName());
+        if(!yaml && !(json && !mapper.isEnabled(SerializationFeature.INDENT_OUTPUT))) {
+            log.debug("parallel serialization not supported for {}", mapper.getFactory().getFormatName());
+            new StreamingSwaggerWriter(mapper, release).write(swagger, Channels.newOutputStream(target));
+            return;
+        }
+
+        try(WritableByteChannel out = target) {
+            // paths are read from the field as the getter returns a sorted copy
+            Map<String, Map<String, ?>> entries = new HashMap<>();
+            String skeleton = skeletonMapper.writer().withAttribute(ENTRIES, entries).writeValueAsString(swagger);
+
+            List<Placeholder> placeholders = new ArrayList<>();
+            placeholders.add(new Placeholder(skeleton, PATHS_MARKER, entries.get(PATHS_MARKER)));
+            placeholders.add(new Placeholder(skeleton, DEFINITIONS_MARKER, entries.get(DEFINITIONS_MARKER)));
+            placeholders.removeIf(p -> p.start < 0);
+            placeholders.sort(Comparator.comparingInt(p -> p.start));
+
+            int written = 0;
+            for(Placeholder p : placeholders) {
+                write(out, skeleton.substring(written, p.start));
+                p.write(out);
+                written = p.end;
+            }
+            write(out, skeleton.substring(written));
+
+            if(release) {
+                swagger.setPaths(new TreeMap<>());
+                if(swagger.getDefinitions() != null) swagger.getDefinitions().clear();
+            }
+        }
+    }
+
+    private static byte[] join(CompletableFuture<byte[]> chunk) throws IOException {
+        try {
+            return chunk.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+            throw e;
+        }
+    }
+
+    private static void write(WritableByteChannel out, String text) throws IOException {
+        write(out, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void write(WritableByteChannel out, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while(buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    private String entry(String key) {
+        return yaml ? "  " + key + ": 0\n" : "\"" + key + "\":0";
+    }
+
+    /**
+     * Placeholder entry of paths or definitions in serialized document and ranges that replace it
+     */
+    private class Placeholder {
+        private final int start;
+        private final int end;
+        private final Map<String, ?> entries;
+
+        private Placeholder(String skeleton, String marker, Map<String, ?> entries) {
+            String entry = entry(marker);
+            this.start = skeleton.indexOf(entry);
+            this.end = start + entry.length();
+            this.entries = entries;
+        }
+
+        /**
+         * Serialize ranges of entries, at most <code>parallelism</code> of them at once, and write them in order.
+         * Values of a range are taken only when the range is submitted and, if released, removed once it is written.
+         * @param out target
+         * @throws IOException when problem with writing
+         */
+        private void write(WritableByteChannel out) throws IOException {
+            boolean writeNulls = mapper.isEnabled(SerializationFeature.WRITE_NULL_MAP_VALUES);
+            List<String> keys = entries.keySet().stream()
+                    .filter(k -> k != null && (writeNulls || entries.get(k) != null))
+                    .sorted()
+                    .collect(Collectors.toList());
+            int size = Math.max(MIN_PARTITION, (keys.size() + parallelism - 1) / parallelism);
+
+            Deque<List<String>> ranges = new ArrayDeque<>();
+            for(int from = 0; from < keys.size(); from += size) {
+                ranges.add(keys.subList(from, Math.min(keys.size(), from + size)));
+            }
+
+            Deque<Map.Entry<List<String>, CompletableFuture<byte[]>>> inFlight = new ArrayDeque<>();
+            boolean first = true;
+            while(!ranges.isEmpty() || !inFlight.isEmpty()) {
+                while(inFlight.size() < parallelism && !ranges.isEmpty()) {
+                    List<String> range = ranges.poll();
+                    Map<String, Object> values = new LinkedHashMap<>();
+                    range.forEach(k -> values.put(k, entries.get(k)));
+                    inFlight.add(new AbstractMap.SimpleEntry<>(range, CompletableFuture.supplyAsync(() -> serialize(values))));
+                }
+                Map.Entry<List<String>, CompletableFuture<byte[]>> chunk = inFlight.poll();
+                if(!first && !yaml) ParallelSwaggerWriter.write(out, ",");
+                ParallelSwaggerWriter.write(out, join(chunk.getValue()));
+                first = false;
+                if(release) chunk.getKey().forEach(entries::remove);
+            }
+        }
+
+        /**
+         * Serialize range of entries as a nested object and strip everything but the entries
+         * @param range of entries
+         * @return serialized entries
+         */
+        private byte[] serialize(Map<String, Object> range) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            try(JsonGenerator gen = mapper.getFactory().createGenerator(buffer)) {
+                gen.writeStartObject();
+                gen.writeFieldName("e");
+                gen.writeStartObject();
+                for(Map.Entry<String, Object> e : range.entrySet()) {
+                    gen.writeFieldName(e.getKey());
+                    mapper.writeValue(gen, e.getValue());
+                }
+                gen.writeEndObject();
+                gen.writeEndObject();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            byte[] bytes = buffer.toByteArray();
+            // both header and trailer are ASCII
+            String header = yaml ? "---\ne:\n" : "{\"e\":{";
+            int trailer = yaml ? 0 : 2;
+            if(!new String(bytes, 0, Math.min(bytes.length, header.length()), StandardCharsets.UTF_8).equals(header)) {
+                throw new IllegalStateException("Unexpected serialization of " + range.keySet().iterator().next());
+            }
+            return Arrays.copyOfRange(bytes, header.length(), bytes.length - trailer);
+        }
+    }
+
+    @JsonPropertyOrder({"swagger", "info", "host", "basePath", "tags", "schemes", "consumes", "produces", "paths"})
+    private static abstract class SkeletonMixIn {
+        @JsonProperty("paths")
+        @JsonSerialize(using = PathsPlaceholder.class)
+        Map<String, Path> paths;
+
+        @JsonIgnore
+        abstract Map<String, Path> getPaths();
+
+        @JsonSerialize(using = DefinitionsPlaceholder.class)
+        abstract Map<String, Model> getDefinitions();
+    }
+
+    private static class PathsPlaceholder extends JsonSerializer<Map<String, ?>> {
+        @Override
+        public void serialize(Map<String, ?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            placeholder(value, PATHS_MARKER, gen, provider);
+        }
+    }
+
+    private static class DefinitionsPlaceholder extends JsonSerializer<Map<String, ?>> {
+        @Override
+        public void serialize(Map<String, ?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            placeholder(value, DEFINITIONS_MARKER, gen, provider);
+        }
+    }
+
+    /**
+     * Write object with a single placeholder entry, or an empty object if there are no entries to write.
+     * The entries are kept in the attribute of the provider by the marker.
+     */
+    @SuppressWarnings("unchecked")
+    private static void placeholder(Map<String, ?> value, String marker, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        ((Map<String, Map<String, ?>>) provider.getAttribute(ENTRIES)).put(marker, value);
+        boolean writeNulls = provider.isEnabled(SerializationFeature.WRITE_NULL_MAP_VALUES);
+        gen.writeStartObject();
+        if(value.entrySet().stream().anyMatch(e -> e.getKey() != null && (writeNulls || e.getValue() != null))) {
+            gen.writeNumberField(marker, 0);
+        }
+        gen.writeEndObject();
+    }
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mrv.yangtools.codegen.impl.postprocessor.SwaggerRefHelper;
+import io.swagger.models.Model;
+import io.swagger.models.Swagger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes swagger as a set of self-contained shards and an index. Paths are assigned to shards by {@link Sharding},
+ * e.g. by tag or by path prefix. Each shard contains only the definitions reachable from its paths.
+ * The index lists the shards with the number of their paths and their root definitions (used directly by the paths),
+ * so clients can load only the shards they need.
+ * Documents are written concurrently, each only if its content has changed.
+ * @author bartosz.michalik@amartus.com
+ */
+public class ShardedSwaggerWriter {
+    private static final Logger log = LoggerFactory.getLogger(ShardedSwaggerWriter.class);
+
+    private final ObjectMapper mapper;
+    private final String extension;
+    private final Sharding sharding;
+    private boolean compressed = false;
+
+    /**
+     * Assignment of a path to a shard
+     */
+    @FunctionalInterface
+    public interface Sharding {
+        /**
+         * @param name of the path
+         * @param path definition
+         * @return name of the shard
+         */
+        String shard(String name, io.swagger.models.Path path);
+
+        /**
+         * @return sharding by the first tag of the path operations, untagged paths go to 'default' shard
+         */
+        static Sharding byTag() {
+            return (name, path) -> path.getOperations().stream()
+                    .filter(o -> o.getTags() != null && !o.getTags().isEmpty())
+                    .map(o -> o.getTags().get(0))
+                    .findFirst().orElse("default");
+        }
+
+        /**
+         * @param depth number of leading path segments
+         * @return sharding by path prefix, e.g. '/data/module:container' for depth 2
+         */
+        static Sharding byPrefix(int depth) {
+            if(depth < 1) throw new IllegalArgumentException("depth has to be positive");
+            return (name, path) -> Arrays.stream(name.split("/"))
+                    .filter(s -> !s.isEmpty())
+                    .limit(depth)
+                    .collect(Collectors.joining("/", "/", ""));
+        }
+
+        /**
+         * @param spec 'tag' or 'prefix:depth'
+         * @return sharding for specification
+         */
+        static Sharding of(String spec) {
+            if("tag".equals(spec)) return byTag();
+            if(spec != null && spec.startsWith("prefix:")) {
+                return byPrefix(Integer.parseInt(spec.substring("prefix:".length())));
+            }
+            throw new IllegalArgumentException("Unknown sharding " + spec + ", expected 'tag' or 'prefix:depth'");
+        }
+    }
+
+    /**
+     * @param mapper configured for the output format
+     * @param extension of written files
+     * @param sharding assignment of paths to shards
+     */
+    public ShardedSwaggerWriter(ObjectMapper mapper, String extension, Sharding sharding) {
+        this.mapper = mapper;
+        this.extension = extension;
+        this.sharding = Objects.requireNonNull(sharding);
+    }
+
+    /**
+     * @param compressed true to compress documents with GZIP
+     * @return this
+     */
+    public ShardedSwaggerWriter compressed(boolean compressed) {
+        this.compressed = compressed;
+        return this;
+    }
+
+    /**
+     * Write shards and the index to directory
+     * @param swagger to write
+     * @param directory target directory
+     * @return all documents, index first
+     * @throws IOException when problem with writing
+     */
+    public List<Path> write(Swagger swagger, Path directory) throws IOException {
+        Map<String, Map<String, io.swagger.models.Path>> shards = new TreeMap<>();
+        if(swagger.getPaths() != null) {
+            swagger.getPaths().forEach((name, path) ->
+                    shards.computeIfAbsent(sharding.shard(name, path), s -> new TreeMap<>()).put(name, path));
+        }
+        Map<String, Model> definitions = swagger.getDefinitions() == null ? Collections.emptyMap() : swagger.getDefinitions();
+
+        Map<String, Object> index = new LinkedHashMap<>();
+        index.put("info", swagger.getInfo());
+        List<Map<String, Object>> entries = new ArrayList<>();
+        index.put("shards", entries);
+
+        List<CompletableFuture<Path>> documents = new ArrayList<>();
+        Set<String> files = new HashSet<>();
+        files.add("index." + extension);
+
+        shards.forEach((shard, paths) -> {
+            String file = fileName(shard, files);
+            Set<String> roots = new TreeSet<>();
+            paths.values().stream().flatMap(p -> p.getOperations().stream())
+                    .flatMap(SwaggerRefHelper::getUses)
+                    .forEach(roots::add);
+            Set<String> reachable = SwaggerRefHelper.getReachable(Stream.concat(roots.stream(), SwaggerRefHelper.getSharedUses(swagger)), definitions);
+
+            Swagger document = SplitSwaggerWriter.header(swagger);
+            document.setTags(SplitSwaggerWriter.usedTags(swagger, paths));
+            document.setPaths(paths);
+            document.setParameters(swagger.getParameters());
+            document.setResponses(swagger.getResponses());
+            Map<String, Model> shardDefinitions = new TreeMap<>();
+            reachable.forEach(d -> shardDefinitions.put(d, definitions.get(d)));
+            document.setDefinitions(shardDefinitions);
+            documents.add(SplitSwaggerWriter.write(mapper, compressed, directory.resolve(file), () -> document));
+
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", shard);
+            entry.put("file", file);
+            entry.put("paths", paths.size());
+            entry.put("definitions", new ArrayList<>(roots));
+            entries.add(entry);
+            log.debug("shard {} with {} paths and {} definitions", shard, paths.size(), shardDefinitions.size());
+        });
+
+        documents.add(0, SplitSwaggerWriter.write(mapper, compressed, directory.resolve("index." + extension), () -> index));
+
+        List<Path> written = SplitSwaggerWriter.join(documents);
+        log.info("{} shards written to {}", shards.size(), directory);
+        return written;
+    }
+
+    private String fileName(String shard, Set<String> taken) {
+        String base = shard.replaceAll("^/+", "").replaceAll("[^A-Za-z0-9._-]+", "_");
+        if(base.isEmpty()) base = "root";
+        String file = base + "." + extension;
+        for(int i = 1; !taken.add(file); i++) {
+            file = base + "_" + i + "." + extension;
+        }
+        return file;
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.fasterxml.jackson.databind.node.TextNode;
+import com.mrv.yangtools.common.FileSink;
+import io.swagger.models.Swagger;
+import io.swagger.models.Tag;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes swagger as a set of documents: one document per module with paths generated for that module
+ * and a shared document with definitions, parameters and responses. References in module documents point
+ * to the shared document with relative <code>$ref</code>s (e.g. <code>definitions.yaml#/definitions/type</code>).
+ * Documents are written concurrently, each only if its content has changed (see {@link FileSink}).
+ * @author bartosz.michalik@amartus.com
+ */
+public class SplitSwaggerWriter {
+    private static final Logger log = LoggerFactory.getLogger(SplitSwaggerWriter.class);
+    private static final String REF = "$ref";
+
+    private final ObjectMapper mapper;
+    private final String extension;
+    private String shared = "definitions";
+    private boolean compressed = false;
+
+    /**
+     * @param mapper configured for the output format
+     * @param extension of written files
+     */
+    public SplitSwaggerWriter(ObjectMapper mapper, String extension) {
+        this.mapper = mapper;
+        this.extension = extension;
+    }
+
+    /**
+     * @param shared name of the document with definitions ('definitions' by default)
+     * @return this
+     */
+    public SplitSwaggerWriter shared(String shared) {
+        this.shared = Objects.requireNonNull(shared);
+        return this;
+    }
+
+    /**
+     * @param compressed true to compress documents with GZIP
+     * @return this
+     */
+    public SplitSwaggerWriter compressed(boolean compressed) {
+        this.compressed = compressed;
+        return this;
+    }
+
+    /**
+     * Write documents to directory.
+     * @param swagger to write
+     * @param pathModules module for each path, paths without module are kept in the shared document
+     * @param directory target directory
+     * @return all documents
+     * @throws IOException when problem with writing
+     */
+    public List<Path> write(Swagger swagger, Map<String, String> pathModules, Path directory) throws IOException {
+        Map<String, Map<String, io.swagger.models.Path>> byModule = new TreeMap<>();
+        Map<String, io.swagger.models.Path> unassigned = new TreeMap<>();
+        if(swagger.getPaths() != null) {
+            swagger.getPaths().forEach((name, path) -> {
+                String module = pathModules.get(name);
+                Map<String, io.swagger.models.Path> paths = module == null ? unassigned :
+                        byModule.computeIfAbsent(module, m -> new TreeMap<>());
+                paths.put(name, path);
+            });
+        }
+        if(byModule.containsKey(shared)) {
+            throw new IllegalArgumentException("Module " + shared + " collides with the shared document name");
+        }
+        if(!unassigned.isEmpty()) {
+            log.warn("{} paths not generated for any module are written to the shared document", unassigned.size());
+        }
+
+        String sharedFile = shared + "." + extension;
+        List<CompletableFuture<Path>> documents = new ArrayList<>();
+
+        Swagger sharedDocument = header(swagger);
+        sharedDocument.setPaths(unassigned);
+        sharedDocument.setDefinitions(swagger.getDefinitions());
+        sharedDocument.setParameters(swagger.getParameters());
+        sharedDocument.setResponses(swagger.getResponses());
+        documents.add(write(directory.resolve(sharedFile), sharedDocument, null));
+
+        byModule.forEach((module, paths) -> {
+            Swagger document = header(swagger);
+            document.setPaths(paths);
+            document.setTags(usedTags(swagger, paths));
+            documents.add(write(directory.resolve(module + "." + extension), document, sharedFile));
+        });
+
+        List<Path> written = join(documents);
+        log.info("{} documents written to {}", written.size(), directory);
+        return written;
+    }
+
+    private CompletableFuture<Path> write(Path file, Swagger document, String refTarget) {
+        if(refTarget == null) return write(mapper, compressed, file, () -> document);
+        return write(mapper, compressed, file, () -> {
+            JsonNode tree = mapper.valueToTree(document);
+            relativeRefs(tree, refTarget);
+            return tree;
+        });
+    }
+
+    /**
+     * Write document on the common pool if its content has changed
+     * @param mapper to serialize the document
+     * @param compressed true to compress the document with GZIP
+     * @param file target file
+     * @param document supplier of the document, called by the writing thread
+     * @return written file
+     */
+    static CompletableFuture<Path> write(ObjectMapper mapper, boolean compressed, Path file, Supplier<Object> document) {
+        return CompletableFuture.supplyAsync(() -> {
+            try(FileSink sink = FileSink.open(file)) {
+                OutputStream out = Channels.newOutputStream(sink.channel());
+                try(JsonGenerator generator = mapper.getFactory().createGenerator(
+                        compressed ? new GZIPOutputStream(out) : out, JsonEncoding.UTF8)) {
+                    mapper.writeValue(generator, document.get());
+                }
+                if(!sink.commit()) {
+                    log.debug("{} is up to date", file);
+                }
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Wait for all documents to be written
+     * @param documents being written
+     * @return written files
+     * @throws IOException when problem with writing any of the documents
+     */
+    static List<Path> join(List<CompletableFuture<Path>> documents) throws IOException {
+        List<Path> written = new ArrayList<>();
+        for(CompletableFuture<Path> d : documents) {
+            try {
+                written.add(d.join());
+            } catch (CompletionException e) {
+                if(e.getCause() instanceof UncheckedIOException) throw ((UncheckedIOException) e.getCause()).getCause();
+                throw e;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Point local references to the shared document
+     * @param node to fix
+     * @param refTarget shared document
+     */
+    private static void relativeRefs(JsonNode node, String refTarget) {
+        if(node.isObject()) {
+            ObjectNode object = (ObjectNode) node;
+            JsonNode ref = object.get(REF);
+            if(ref != null && ref.isTextual() && ref.textValue().startsWith("#/")) {
+                object.set(REF, new TextNode(refTarget + ref.textValue()));
+            }
+        }
+        node.elements().forEachRemaining(n -> relativeRefs(n, refTarget));
+    }
+
+    static List<Tag> usedTags(Swagger swagger, Map<String, io.swagger.models.Path> paths) {
+        if(swagger.getTags() == null) return null;
+        Set<String> used = paths.values().stream()
+                .flatMap(p -> p.getOperations().stream())
+                .filter(o -> o.getTags() != null)
+                .flatMap(o -> o.getTags().stream())
+                .collect(Collectors.toSet());
+        List<Tag> tags = swagger.getTags().stream().filter(t -> used.contains(t.getName())).collect(Collectors.toList());
+        return tags.isEmpty() ? null : tags;
+    }
+
+    /**
+     * @param swagger source
+     * @return document with all but paths, definitions, parameters and responses of the source
+     */
+    static Swagger header(Swagger swagger) {
+        Swagger document = new Swagger()
+                .info(swagger.getInfo())
+                .host(swagger.getHost())
+                .basePath(swagger.getBasePath())
+                .externalDocs(swagger.getExternalDocs());
+        document.setTags(swagger.getTags());
+        document.setSchemes(swagger.getSchemes());
+        document.setConsumes(swagger.getConsumes());
+        document.setProduces(swagger.getProduces());
+        document.setSecurity(swagger.getSecurity());
+        document.setSecurityDefinitions(swagger.getSecurityDefinitions());
+        if(swagger.getVendorExtensions() != null) {
+            swagger.getVendorExtensions().forEach(document::setVendorExtension);
+        }
+        return document;
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.annotation.JsonPropertyOrder;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.models.Model;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Writes swagger document entry by entry with the generator of a configured mapper.
+ * Paths and definitions are written in sorted key order straight from the model, without copying
+ * or sorting the maps upfront. When release is enabled each path and definition is removed from the model
+ * as soon as it is written, so it can be garbage collected while the rest of the document is written.
+ * The output is the same as {@link ObjectMapper#writeValue(Writer, Object)} of the mapper.
+ * @author bartosz.michalik@amartus.com
+ */
+public class StreamingSwaggerWriter {
+    private final ObjectMapper mapper;
+
+    /**
+     * @param mapper configured for the output format, it is not modified
+     * @param release written paths and definitions
+     */
+    public StreamingSwaggerWriter(ObjectMapper mapper, boolean release) {
+        this.mapper = mapper.copy();
+        this.mapper.addMixInAnnotations(Swagger.class, release ? ReleasingMixIn.class : StreamingMixIn.class);
+    }
+
+    /**
+     * Write swagger to target. The target is closed afterwards.
+     * @param swagger to write
+     * @param target writer
+     * @throws IOException when problem with writing
+     */
+    public void write(Swagger swagger, Writer target) throws IOException {
+        try(JsonGenerator generator = mapper.getFactory().createGenerator(target)) {
+            mapper.writeValue(generator, swagger);
+        }
+    }
+
+    /**
+     * Write swagger to target, text formats in UTF-8. The target is closed afterwards.
+     * @param swagger to write
+     * @param target stream
+     * @throws IOException when problem with writing
+     */
+    public void write(Swagger swagger, OutputStream target) throws IOException {
+        try(JsonGenerator generator = mapper.getFactory().createGenerator(target, JsonEncoding.UTF8)) {
+            mapper.writeValue(generator, swagger);
+        }
+    }
+
+    /**
+     * Swagger model sorts paths in a copy each time they are read, paths field is written directly instead
+     */
+    @JsonPropertyOrder({"swagger", "info", "host", "basePath", "tags", "schemes", "consumes", "produces", "paths"})
+    private static abstract class StreamingMixIn {
+        @JsonProperty("paths")
+        @JsonSerialize(using = SortedEntries.class)
+        Map<String, Path> paths;
+
+        @JsonIgnore
+        abstract Map<String, Path> getPaths();
+
+        @JsonSerialize(using = SortedEntries.class)
+        abstract Map<String, Model> getDefinitions();
+    }
+
+    @JsonPropertyOrder({"swagger", "info", "host", "basePath", "tags", "schemes", "consumes", "produces", "paths"})
+    private static abstract class ReleasingMixIn {
+        @JsonProperty("paths")
+        @JsonSerialize(using = ReleasedEntries.class)
+        Map<String, Path> paths;
+
+        @JsonIgnore
+        abstract Map<String, Path> getPaths();
+
+        @JsonSerialize(using = ReleasedEntries.class)
+        abstract Map<String, Model> getDefinitions();
+    }
+
+    private static class SortedEntries extends JsonSerializer<Map<String, ?>> {
+        private final boolean release;
+
+        @SuppressWarnings("unused")
+        SortedEntries() {
+            this(false);
+        }
+
+        SortedEntries(boolean release) {
+            this.release = release;
+        }
+
+        @Override
+        public void serialize(Map<String, ?> value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            boolean writeNulls = provider.isEnabled(SerializationFeature.WRITE_NULL_MAP_VALUES);
+            gen.writeStartObject();
+            for(Iterator<String> it = sortedKeys(value); it.hasNext();) {
+                String key = it.next();
+                Object entry = value.get(key);
+                if(key != null && (entry != null || writeNulls)) {
+                    provider.defaultSerializeField(key, entry, gen);
+                }
+                if(release) it.remove();
+            }
+            gen.writeEndObject();
+        }
+
+        /**
+         * @param map to iterate
+         * @return keys in natural order, removal through the iterator removes entry from the map
+         */
+        private static Iterator<String> sortedKeys(Map<String, ?> map) {
+            if(map instanceof SortedMap && ((SortedMap<String, ?>) map).comparator() == null) {
+                return map.keySet().iterator();
+            }
+            List<String> keys = new ArrayList<>(map.keySet());
+            keys.remove(null);
+            Collections.sort(keys);
+            Iterator<String> sorted = keys.iterator();
+            return new Iterator<String>() {
+                private String current;
+                @Override
+                public boolean hasNext() {
+                    return sorted.hasNext();
+                }
+
+                @Override
+                public String next() {
+                    current = sorted.next();
+                    return current;
+                }
+
+                @Override
+                public void remove() {
+                    map.remove(current);
+                }
+            };
+        }
+    }
+
+    private static class ReleasedEntries extends SortedEntries {
+        @SuppressWarnings("unused")
+        ReleasedEntries() {
+            super(true);
+        }
+    }
+}
@@ -90,12 +90,12 @@ public abstract class AbstractPathHandler implements PathHandler {
                     .schema(refProperty)
                     .description(description));
         } else {
-            post.response(204, new Response().description("No Content")); //no output body
+            post.response(204, SharedResponses.NO_CONTENT); //no output body
         }
-        post.response(400, new Response().description("Bad Request"));
-        post.response(401, new Response().description("Unauthorized"));
-        post.response(403, new Response().description("Forbidden"));
-        post.response(404, new Response().description("Not Found"));
+        post.response(400, SharedResponses.BAD_REQUEST);
+        post.response(401, SharedResponses.UNAUTHORIZED);
+        post.response(403, SharedResponses.FORBIDDEN);
+        post.response(404, SharedResponses.NOT_FOUND);
         swagger.path(operations + printer.path(), new Path().post(post));
     }
 
@@ -125,12 +125,16 @@ public abstract class AbstractPathHandler implements PathHandler {
 
     private Operation defaultOperation(PathSegment pathCtx) {
         final Operation operation = new Operation();
-        operation.response(400, new Response().description("Internal error"));
+        operation.response(400, SharedResponses.INTERNAL_ERROR);
         operation.setParameters(pathCtx.params());
         return operation;
     }
 
     protected List<String> tags(PathSegment pathCtx) {
+        return pathCtx.tags(this::computeTags);
+    }
+
+    private List<String> computeTags(PathSegment pathCtx) {
         List<String> tags = new ArrayList<>(tagGenerators.stream().flatMap(g -> g.tags(pathCtx).stream())
                 .collect(Collectors.toSet()));
         Collections.sort(tags);
@@ -57,6 +57,11 @@ public abstract class AbstractPathHandlerBuilder implements PathHandlerBuilder {
 
     protected abstract <T extends AbstractPathHandlerBuilder> T thiz();
 
+    @Override
+    public String toString() {
+        return getClass().getName() + " useModuleName=" + useModuleName + " fullCrud=" + fullCrud;
+    }
+
     public <T extends AbstractPathHandlerBuilder> T withoutFullCrud() {
         fullCrud = false;
         return thiz();
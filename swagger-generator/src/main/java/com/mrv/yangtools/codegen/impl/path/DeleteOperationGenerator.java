@@ -14,7 +14,6 @@ package com.mrv.yangtools.codegen.impl.path;
 import com.mrv.yangtools.codegen.DataObjectRepo;
 import com.mrv.yangtools.codegen.PathSegment;
 import io.swagger.models.Operation;
-import io.swagger.models.Response;
 import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
 
 /**
@@ -33,9 +32,9 @@ public class DeleteOperationGenerator extends OperationGenerator {
         String description = node.getDescription() == null ? "removes " + getName(node) :
                 node.getDescription();
         delete.description(description);
-        delete.response(204, new Response().description("Object deleted"));
-        delete.response(401, new Response().description("Unauthorized"));
-        delete.response(403, new Response().description("Forbidden"));
+        delete.response(204, SharedResponses.OBJECT_DELETED);
+        delete.response(401, SharedResponses.UNAUTHORIZED);
+        delete.response(403, SharedResponses.FORBIDDEN);
         return delete;
     }
 }
@@ -64,9 +64,9 @@ public class GetOperationGenerator extends OperationGenerator {
         get.response(200, new Response()
                 .schema(new RefProperty(getDefinitionId(node)))
                 .description(getName(node)));
-        get.response(400, new Response().description("Bad Request"));
-        get.response(401, new Response().description("Unauthorized"));
-        get.response(404, new Response().description("Not Found"));
+        get.response(400, SharedResponses.BAD_REQUEST);
+        get.response(401, SharedResponses.UNAUTHORIZED);
+        get.response(404, SharedResponses.NOT_FOUND);
         return get;
     }
 
@@ -75,7 +75,7 @@ public class GetOperationGenerator extends OperationGenerator {
         headOperation.setParameters(getOperation.getParameters());
         headOperation.setSummary(getOperation.getSummary());
         headOperation.setDescription(getOperation.getDescription());
-        headOperation.setResponses(getOperation.getResponses().entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> new Response().description(entry.getValue().getDescription()))));
+        headOperation.setResponses(getOperation.getResponses().entrySet().stream().collect(Collectors.toMap(Map.Entry::getKey, entry -> SharedResponses.forHead(entry.getValue()))));
         headOperation.setTags(getOperation.getTags());
         return headOperation;
     }
@@ -14,7 +14,6 @@ package com.mrv.yangtools.codegen.impl.path;
 import com.mrv.yangtools.codegen.DataObjectRepo;
 import com.mrv.yangtools.codegen.PathSegment;
 import io.swagger.models.Operation;
-import io.swagger.models.Response;
 import org.opendaylight.yangtools.yang.model.api.DataNodeContainer;
 import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
 import org.opendaylight.yangtools.yang.model.api.SchemaNode;
@@ -59,7 +58,7 @@ public abstract class OperationGenerator<T extends SchemaNode & DataNodeContaine
      */
     protected Operation defaultOperation() {
         final Operation operation = new io.swagger.models.Operation();
-        operation.response(400, new Response().description("Internal error"));
+        operation.response(400, SharedResponses.INTERNAL_ERROR);
         operation.setParameters(path.params());
         return operation;
     }
@@ -4,7 +4,6 @@ import com.mrv.yangtools.codegen.DataObjectRepo;
 import com.mrv.yangtools.codegen.PathSegment;
 import io.swagger.models.Operation;
 import io.swagger.models.RefModel;
-import io.swagger.models.Response;
 import io.swagger.models.parameters.BodyParameter;
 import io.swagger.models.properties.RefProperty;
 import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
@@ -35,9 +34,9 @@ public class PatchOperationGenerator extends OperationGenerator {
 //        patch.response(200, new Response()
 //                .schema(new RefProperty(getDefinitionId(node)))
 //                .description(getName(node))); // TODO is there a 200 return?
-        patch.response(204, new Response().description("Operation successful"));
-        patch.response(401, new Response().description("Unauthorized"));
-        patch.response(403, new Response().description("Forbidden"));
+        patch.response(204, SharedResponses.OPERATION_SUCCESSFUL);
+        patch.response(401, SharedResponses.UNAUTHORIZED);
+        patch.response(403, SharedResponses.FORBIDDEN);
         return patch;
     }
 }
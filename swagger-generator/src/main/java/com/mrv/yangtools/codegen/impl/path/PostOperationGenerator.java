@@ -15,7 +15,6 @@ import com.mrv.yangtools.codegen.DataObjectRepo;
 import com.mrv.yangtools.codegen.PathSegment;
 import io.swagger.models.Operation;
 import io.swagger.models.RefModel;
-import io.swagger.models.Response;
 import io.swagger.models.parameters.BodyParameter;
 import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
 
@@ -46,13 +45,13 @@ public class PostOperationGenerator extends OperationGenerator {
         bodyParameter.setRequired(true);
         post.parameter(bodyParameter);
 
-        post.response(201, new Response().description("Object created"));
-        post.response(400, new Response().description("Bad Request"));
-        post.response(401, new Response().description("Unauthorized"));
-        post.response(403, new Response().description("Forbidden"));
+        post.response(201, SharedResponses.OBJECT_CREATED);
+        post.response(400, SharedResponses.BAD_REQUEST);
+        post.response(401, SharedResponses.UNAUTHORIZED);
+        post.response(403, SharedResponses.FORBIDDEN);
         // post.response(404, new Response().description("Not Found"));
         // TODO in what circumstance will it 404?
-        post.response(409, new Response().description("Object already exists"));
+        post.response(409, SharedResponses.OBJECT_EXISTS);
         return post;
     }
 
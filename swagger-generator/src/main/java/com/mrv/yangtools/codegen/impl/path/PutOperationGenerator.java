@@ -15,7 +15,6 @@ import com.mrv.yangtools.codegen.DataObjectRepo;
 import com.mrv.yangtools.codegen.PathSegment;
 import io.swagger.models.Operation;
 import io.swagger.models.RefModel;
-import io.swagger.models.Response;
 import io.swagger.models.parameters.BodyParameter;
 import org.opendaylight.yangtools.yang.model.api.DataSchemaNode;
 
@@ -43,10 +42,10 @@ public class PutOperationGenerator extends OperationGenerator {
         bodyParameter.setRequired(true);
         put.parameter(bodyParameter);
 
-        put.response(201, new Response().description("Object created"));
-        put.response(204, new Response().description("Object modified"));
-        put.response(401, new Response().description("Unauthorized"));
-        put.response(403, new Response().description("Forbidden"));
+        put.response(201, SharedResponses.OBJECT_CREATED);
+        put.response(204, SharedResponses.OBJECT_MODIFIED);
+        put.response(401, SharedResponses.UNAUTHORIZED);
+        put.response(403, SharedResponses.FORBIDDEN);
         // TODO in what circumstance will it 404?
         return put;
     }
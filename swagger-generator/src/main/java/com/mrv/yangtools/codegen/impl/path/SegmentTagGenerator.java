@@ -34,16 +34,24 @@ public class SegmentTagGenerator implements TagGenerator {
 
     @Override
     public Set<String> tags(PathSegment segment) {
-        Iterator<PathSegment> iterator = segment.iterator();
-
-        LinkedList<String> names = new LinkedList<>();
+        int size = 0;
+        for(PathSegment ignored : segment) {
+            size++;
+        }
 
-        while(iterator.hasNext()) {
-            names.addFirst(iterator.next().getName());
+        // names are counted from the root, the last one belongs to the segment itself
+        int toSkip = size > level ? size - 1 - level : 0;
+        Iterator<PathSegment> iterator = segment.iterator();
+        PathSegment named = iterator.next();
+        for(int i = 0; i < toSkip; i++) {
+            named = iterator.next();
         }
 
-        String name = names.size() > level ? names.get(level) : names.getLast();
+        return new HashSet<>(Collections.singletonList(BindingMapping.getClassName(named.getName())));
+    }
 
-        return new HashSet<>(Collections.singletonList(BindingMapping.getClassName(name)));
+    @Override
+    public String toString() {
+        return getClass().getName() + " level=" + level;
     }
 }
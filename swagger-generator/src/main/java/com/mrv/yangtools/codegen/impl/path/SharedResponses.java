@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl.path;
+
+import io.swagger.models.Response;
+import io.swagger.models.properties.Property;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Flyweights for the description-only responses attached to every generated operation.
+ * Instances are shared between all operations and cannot be modified.
+ * @author bartosz.michalik@amartus.com
+ */
+public final class SharedResponses {
+    private static final Map<String, Response> byDescription = new HashMap<>();
+    public static final Response INTERNAL_ERROR = shared("Internal error");
+    public static final Response BAD_REQUEST = shared("Bad Request");
+    public static final Response UNAUTHORIZED = shared("Unauthorized");
+    public static final Response FORBIDDEN = shared("Forbidden");
+    public static final Response NOT_FOUND = shared("Not Found");
+    public static final Response NO_CONTENT = shared("No Content");
+    public static final Response OBJECT_CREATED = shared("Object created");
+    public static final Response OBJECT_MODIFIED = shared("Object modified");
+    public static final Response OBJECT_DELETED = shared("Object deleted");
+    public static final Response OBJECT_EXISTS = shared("Object already exists");
+    public static final Response OPERATION_SUCCESSFUL = shared("Operation successful");
+
+    private SharedResponses() {
+        throw new UnsupportedOperationException("Utility class should not be instantiated");
+    }
+
+    /**
+     * @param response to check
+     * @return true if response is one of the shared flyweights
+     */
+    public static boolean isShared(Response response) {
+        return response instanceof ImmutableResponse;
+    }
+
+    /**
+     * Response to be used in HEAD operation for a given GET response
+     * @param response of GET operation
+     * @return shared response or a new description-only copy
+     */
+    public static Response forHead(Response response) {
+        if(isShared(response)) return response;
+        return new Response().description(response.getDescription());
+    }
+
+    /**
+     * @param response to look up
+     * @return shared response equal to the given one or the response itself
+     */
+    public static Response intern(Response response) {
+        if(response == null || isShared(response)) return response;
+        Response shared = byDescription.get(response.getDescription());
+        return shared != null && new Response().description(shared.getDescription()).equals(response) ? shared : response;
+    }
+
+    private static Response shared(String description) {
+        ImmutableResponse response = new ImmutableResponse();
+        response.init(description);
+        byDescription.put(description, response);
+        return response;
+    }
+
+    /**
+     * Has no state of its own, so it is stored as a plain response
+     */
+    private static class ImmutableResponse extends Response {
+
+        private void init(String description) {
+            super.setDescription(description);
+        }
+
+        private void readOnly() {
+            if(getDescription() != null) throw new UnsupportedOperationException("Shared response '" + getDescription() + "' cannot be modified");
+        }
+
+        @Override
+        public Response schema(Property property) {
+            readOnly();
+            return super.schema(property);
+        }
+
+        @Override
+        public Response description(String description) {
+            readOnly();
+            return super.description(description);
+        }
+
+        @Override
+        public Response example(String type, Object example) {
+            readOnly();
+            return super.example(type, example);
+        }
+
+        @Override
+        public Response header(String name, Property property) {
+            readOnly();
+            return super.header(name, property);
+        }
+
+        @Override
+        public Response headers(Map<String, Property> headers) {
+            readOnly();
+            return super.headers(headers);
+        }
+
+        @Override
+        public Response vendorExtension(String key, Object value) {
+            readOnly();
+            return super.vendorExtension(key, value);
+        }
+
+        @Override
+        public void setDescription(String description) {
+            readOnly();
+            super.setDescription(description);
+        }
+
+        @Override
+        public void setSchema(Property schema) {
+            readOnly();
+            super.setSchema(schema);
+        }
+
+        @Override
+        public void setExamples(Map<String, Object> examples) {
+            readOnly();
+            super.setExamples(examples);
+        }
+
+        @Override
+        public void setHeaders(Map<String, Property> headers) {
+            readOnly();
+            super.setHeaders(headers);
+        }
+
+        @Override
+        public void addHeader(String key, Property property) {
+            readOnly();
+            super.addHeader(key, property);
+        }
+
+        @Override
+        public void setVendorExtension(String name, Object value) {
+            readOnly();
+            super.setVendorExtension(name, value);
+        }
+    }
+}
@@ -23,7 +23,7 @@ import java.util.function.Consumer;
 /**
  * @author bartosz.michalik@amartus.com
  */
-public class AddSecurityDefinitions implements Consumer<Swagger> {
+public class AddSecurityDefinitions implements Consumer<Swagger>, ReferenceGraph.Maintaining {
 
     private SecuritySchemeDefinition securityDefinition;
     private String securityDefinitionName;
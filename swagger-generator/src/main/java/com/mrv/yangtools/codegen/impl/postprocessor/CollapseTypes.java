@@ -9,45 +9,187 @@
  */
 package com.mrv.yangtools.codegen.impl.postprocessor;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.models.ComposedModel;
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
 import io.swagger.models.RefModel;
 import io.swagger.models.Swagger;
 
 import java.util.*;
-import java.util.function.Function;
-import java.util.function.Predicate;
+
 import static java.util.stream.Collectors.*;
 
 /**
- * Build replacements for reference models only
+ * Build replacements for definitions with the same content. Collapsed are:
+ * <ul>
+ *     <li>composed models with the same references and inline models (in any order)</li>
+ *     <li>models with the same properties</li>
+ * </ul>
+ * Definitions used directly as operation payloads are collapsed only if they aggregate references.
+ * Definitions are grouped by a canonical signature compared exactly, so different definitions are never merged.
  * @author bartosz.michalik@amartus.com
  */
 public class CollapseTypes extends ReplaceDefinitionsProcessor {
 
-    private Predicate<ComposedModel> referenceOnly = m -> m.getAllOf().stream().allMatch(a -> a instanceof RefModel);
-    private Function<ComposedModel, String> toSignature = m -> Integer.toHexString(
-            m.getAllOf().stream()
-                .filter(a -> a instanceof RefModel)
-                .map(a -> ((RefModel) a).getSimpleRef().hashCode())
-                .reduce((a,b) -> a + b).orElse(0)
-    );
-
+    private final ObjectMapper canonical = new ObjectMapper()
+            .configure(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY, true)
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
 
     @Override
     protected Map<String, String> prepareForReplacement(Swagger swagger) {
+        return prepareForReplacement(swagger, Collections.emptyMap());
+    }
 
-        Map<String, Set<String>> sameGroups = swagger.getDefinitions().entrySet().stream()
-                .filter(e -> e.getValue() instanceof ComposedModel)
-                .filter(e -> referenceOnly.test((ComposedModel) e.getValue()))
-                .map(e -> new AbstractMap.SimpleEntry<>(toSignature.apply((ComposedModel) e.getValue()), e.getKey()))
-                .collect(groupingBy(AbstractMap.SimpleEntry::getKey, mapping(AbstractMap.SimpleEntry::getValue, toSet())));
+    @Override
+    protected Map<String, String> prepareForReplacement(Swagger swagger, Map<String, String> pending) {
+        return analyse(swagger).replacements(pending);
+    }
 
-        return sameGroups.values().stream()
+    /**
+     * Content of the definitions is serialized upfront, references are resolved against pending replacements later
+     * @param swagger model
+     * @return computation of replacements
+     */
+    @Override
+    protected Analysis analyse(Swagger swagger) {
+        Map<String, Parts> candidates = new LinkedHashMap<>();
+        swagger.getDefinitions().forEach((name, model) -> {
+            Parts parts = null;
+            if(model instanceof ComposedModel) {
+                parts = toParts((ComposedModel) model);
+            } else if(model instanceof ModelImpl) {
+                parts = toParts((ModelImpl) model);
+            }
+            if(parts != null) candidates.put(name, parts);
+        });
+        return pending -> collapse(ReferenceGraph.of(swagger), candidates, pending);
+    }
+
+    private Map<String, String> collapse(ReferenceGraph graph, Map<String, Parts> candidates, Map<String, String> pending) {
+        Map<String, Integer> ids = new HashMap<>();
+
+        Map<Signature, Set<String>> sameGroups = new HashMap<>();
+        candidates.forEach((name, parts) -> {
+            if(pending.containsKey(name)) return;
+            // only reference aggregators are collapsed for payloads
+            if(parts.inline.length > 0 && isPayload(graph, name)) return;
+            sameGroups.computeIfAbsent(parts.toSignature(pending, ids), s -> new TreeSet<>()).add(name);
+        });
+
+        Map<String, String> replacements = sameGroups.values().stream()
                 .filter(v -> v.size() > 1)
                 .flatMap(v -> {
                     final String type = v.stream().min(Comparator.comparingInt(String::length)).get();
                     return v.stream().filter(s -> !s.equals(type)).map(s -> new AbstractMap.SimpleEntry<>(s, type));
 
                 }).collect(toMap(AbstractMap.SimpleEntry::getKey, AbstractMap.SimpleEntry::getValue));
+
+        dropRepeatedParts(graph, replacements);
+        return replacements;
+    }
+
+    /**
+     * @param m model
+     * @return parts of the model or null if model cannot be collapsed
+     */
+    private Parts toParts(ComposedModel m) {
+        List<String> refs = new ArrayList<>();
+        List<String> inline = new ArrayList<>();
+        for(Model part : m.getAllOf()) {
+            if(part instanceof RefModel) {
+                refs.add(((RefModel) part).getSimpleRef());
+            } else if(part instanceof ModelImpl) {
+                String c = canonical((ModelImpl) part);
+                if(c == null) return null;
+                inline.add(c);
+            } else {
+                return null;
+            }
+        }
+        return new Parts(refs, inline);
+    }
+
+    private Parts toParts(ModelImpl m) {
+        if(m.getProperties() == null || m.getProperties().isEmpty()) return null;
+        String c = canonical(m);
+        return c == null ? null : new Parts(Collections.emptyList(), Collections.singletonList(c));
+    }
+
+    private String canonical(ModelImpl m) {
+        try {
+            return canonical.writeValueAsString(m);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * References and canonical form of inline models of a definition
+     */
+    private static final class Parts {
+        private final List<String> refs;
+        private final String[] inline;
+
+        private Parts(List<String> refs, List<String> inline) {
+            this.refs = refs;
+            this.inline = inline.stream().sorted().toArray(String[]::new);
+        }
+
+        /**
+         * @param pending replacements to be applied to the references
+         * @param ids interned definition names
+         * @return signature with pending replacements applied
+         */
+        private Signature toSignature(Map<String, String> pending, Map<String, Integer> ids) {
+            int[] refIds = refs.stream()
+                    .mapToInt(ref -> ids.computeIfAbsent(pending.getOrDefault(ref, ref), r -> ids.size()))
+                    .sorted().toArray();
+            return new Signature(refIds, inline);
+        }
+    }
+
+    /**
+     * Sorted references and inline models of a definition with a precomputed 64-bit hash.
+     * Equal hashes are always verified with exact comparison.
+     */
+    private static final class Signature {
+        private final int[] refs;
+        private final String[] inline;
+        private final long hash;
+
+        private Signature(int[] refs, String[] inline) {
+            this.refs = refs;
+            this.inline = inline;
+            long h = 0xcbf29ce484222325L;
+            for(int r : refs) {
+                h = (h ^ r) * 0x100000001b3L;
+            }
+            for(String s : inline) {
+                for(int i = 0; i < s.length(); i++) {
+                    h = (h ^ s.charAt(i)) * 0x100000001b3L;
+                }
+                h = (h ^ 0xff) * 0x100000001b3L;
+            }
+            this.hash = h;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Signature)) return false;
+            Signature that = (Signature) o;
+            return hash == that.hash && Arrays.equals(refs, that.refs) && Arrays.equals(inline, that.inline);
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (hash ^ (hash >>> 32));
+        }
     }
 }
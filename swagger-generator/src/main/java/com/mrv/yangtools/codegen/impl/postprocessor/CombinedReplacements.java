@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import io.swagger.models.Swagger;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+
+/**
+ * Apply replacements of several processors in a single rewrite of the model.
+ * Each processor computes its replacements as if replacements of the preceding processors were already applied.
+ * Chains of replacements are collapsed to their final target, so each reference is rewritten only once.
+ * Upfront analyses of the processors (see {@link ReplaceDefinitionsProcessor#analyse(Swagger)}) and the
+ * {@link ReferenceGraph} of the model are computed concurrently, the replacements are then combined in the configured order.
+ * @author bartosz.michalik@amartus.com
+ */
+public class CombinedReplacements extends ReplaceDefinitionsProcessor {
+    private final List<ReplaceDefinitionsProcessor> processors;
+
+    public CombinedReplacements(List<ReplaceDefinitionsProcessor> processors) {
+        this.processors = new ArrayList<>(processors);
+    }
+
+    @Override
+    protected Map<String, String> prepareForReplacement(Swagger swagger) {
+        return prepareForReplacement(swagger, Collections.emptyMap());
+    }
+
+    @Override
+    protected Map<String, String> prepareForReplacement(Swagger swagger, Map<String, String> pending) {
+        CompletableFuture<ReferenceGraph> graph = CompletableFuture.supplyAsync(() -> ReferenceGraph.of(swagger));
+        List<Analysis> analyses = processors.stream()
+                .map(p -> CompletableFuture.supplyAsync(() -> p.analyse(swagger)))
+                .collect(Collectors.toList()).stream()
+                .map(CombinedReplacements::join)
+                .collect(Collectors.toList());
+        // processors may use the graph and modify the model once all analyses are done
+        join(graph);
+
+        Map<String, String> combined = new HashMap<>(pending);
+        for(Analysis analysis : analyses) {
+            analysis.replacements(Collections.unmodifiableMap(combined)).forEach(combined::putIfAbsent);
+            combined = resolve(combined);
+        }
+        return combined;
+    }
+
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if(e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Swagger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * Replace definitions that have the same structure with a single representative.
+ * Structure of a model is its content including vendor extensions (e.g. <code>x-choice</code>, <code>x-path</code>)
+ * apart from its name and title. References are compared after deduplication of the referenced definitions,
+ * so clones of a whole hierarchy of groupings are merged.
+ * The representative is the definition with the shortest name (the first in lexicographical order on a tie).
+ * @author bartosz.michalik@amartus.com
+ */
+public class DeduplicateDefinitions extends ReplaceDefinitionsProcessor {
+    private static final Logger log = LoggerFactory.getLogger(DeduplicateDefinitions.class);
+    private static final String DEF_PREFIX = "#/definitions/";
+    private static final Comparator<String> representative = Comparator.comparingInt(String::length)
+            .thenComparing(Comparator.naturalOrder());
+
+    private final ObjectMapper mapper = new ObjectMapper()
+            .configure(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS, true)
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    @Override
+    protected Map<String, String> prepareForReplacement(Swagger swagger) {
+        return prepareForReplacement(swagger, Collections.emptyMap());
+    }
+
+    @Override
+    protected Map<String, String> prepareForReplacement(Swagger swagger, Map<String, String> pending) {
+        return analyse(swagger).replacements(pending);
+    }
+
+    /**
+     * Structure of the definitions is computed upfront, references are resolved against pending replacements later
+     * @param swagger model
+     * @return computation of replacements
+     */
+    @Override
+    protected Analysis analyse(Swagger swagger) {
+        Map<String, Map<String, Object>> structures = new TreeMap<>();
+        swagger.getDefinitions().forEach((name, model) -> {
+            if(!(model instanceof ModelImpl)) return;
+            if(model.getProperties() == null || model.getProperties().isEmpty()) return;
+            Map<String, Object> structure = structure(model);
+            if(structure != null) structures.put(name, structure);
+        });
+        return pending -> deduplicate(ReferenceGraph.of(swagger), structures, pending);
+    }
+
+    private Map<String, String> deduplicate(ReferenceGraph graph, Map<String, Map<String, Object>> structures, Map<String, String> pending) {
+        Map<String, Map<String, Object>> candidates = new TreeMap<>();
+        structures.forEach((name, structure) -> {
+            if(pending.containsKey(name)) return;
+            if(isPayload(graph, name)) return;
+            candidates.put(name, structure);
+        });
+
+        Map<String, String> known = resolve(pending);
+        Map<String, Integer> groups = new HashMap<>();
+        Map<String, Integer> signatures = new HashMap<>();
+        List<List<String>> members = new ArrayList<>();
+        // referenced definitions get their signatures first, so references are compared by the groups they belong to
+        for(String name : dependenciesFirst(graph, candidates.keySet(), known)) {
+            String signature = signature(candidates.get(name), ref -> {
+                String target = known.getOrDefault(ref, ref);
+                Integer group = groups.get(target);
+                return group == null ? target : "#" + group;
+            });
+            if(signature == null) continue;
+            Integer group = signatures.computeIfAbsent(signature, x -> {
+                members.add(new ArrayList<>());
+                return members.size() - 1;
+            });
+            groups.put(name, group);
+            members.get(group).add(name);
+        }
+
+        Map<String, String> replacements = new HashMap<>();
+        members.stream().filter(m -> m.size() > 1).forEach(m -> {
+            String kept = Collections.min(m, representative);
+            m.stream().filter(n -> !n.equals(kept)).forEach(n -> replacements.put(n, kept));
+        });
+        log.debug("{} duplicated definitions found", replacements.size());
+
+        dropRepeatedParts(graph, replacements);
+        return replacements;
+    }
+
+    /**
+     * Order candidates so that definitions referenced or used by a candidate precede it.
+     * A definition in a cycle is compared by name with the definitions of the cycle that follow it.
+     * @param graph of the model
+     * @param candidates to be ordered
+     * @param known replacements of definitions
+     * @return candidates in dependency order
+     */
+    private static List<String> dependenciesFirst(ReferenceGraph graph, Set<String> candidates, Map<String, String> known) {
+        List<String> ordered = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Deque<Map.Entry<String, Iterator<String>>> stack = new ArrayDeque<>();
+        for(String start : candidates) {
+            if(!visited.add(start)) continue;
+            stack.push(new AbstractMap.SimpleEntry<>(start, dependencies(graph, start, known)));
+            while(!stack.isEmpty()) {
+                Iterator<String> next = stack.peek().getValue();
+                if(next.hasNext()) {
+                    String dependency = next.next();
+                    if(visited.add(dependency)) {
+                        stack.push(new AbstractMap.SimpleEntry<>(dependency, dependencies(graph, dependency, known)));
+                    }
+                    continue;
+                }
+                String done = stack.pop().getKey();
+                if(candidates.contains(done)) ordered.add(done);
+            }
+        }
+        return ordered;
+    }
+
+    private static Iterator<String> dependencies(ReferenceGraph graph, String type, Map<String, String> known) {
+        return Stream.concat(graph.references(type).stream(), graph.uses(type).stream())
+                .map(d -> known.getOrDefault(d, d))
+                .sorted()
+                .iterator();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> structure(Model model) {
+        Map<String, Object> structure = mapper.convertValue(model, Map.class);
+        structure.remove("title");
+        structure.remove("name");
+        return structure;
+    }
+
+    private String signature(Map<String, Object> structure, Function<String, String> references) {
+        try {
+            return mapper.writeValueAsString(rewrite(structure, references));
+        } catch (JsonProcessingException e) {
+            log.warn("cannot compute structure signature", e);
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object rewrite(Object node, Function<String, String> references) {
+        if(node instanceof Map) {
+            Map<String, Object> result = new HashMap<>();
+            ((Map<String, Object>) node).forEach((k, v) -> {
+                if("$ref".equals(k) && v instanceof String && ((String) v).startsWith(DEF_PREFIX)) {
+                    String ref = ((String) v).substring(DEF_PREFIX.length());
+                    result.put(k, DEF_PREFIX + references.apply(ref));
+                } else {
+                    result.put(k, rewrite(v, references));
+                }
+            });
+            return result;
+        }
+        if(node instanceof List) {
+            List<Object> result = new ArrayList<>();
+            ((List<Object>) node).forEach(v -> result.add(rewrite(v, references)));
+            return result;
+        }
+        return node;
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import com.mrv.yangtools.common.BindingMapping;
+import io.swagger.models.*;
+import io.swagger.models.parameters.BodyParameter;
+import io.swagger.models.parameters.Parameter;
+import io.swagger.models.parameters.RefParameter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Emit responses and parameters repeated across operations once, as top-level <code>responses</code>
+ * and <code>parameters</code> definitions referenced from the operations.
+ * Other processors do not follow these references, thus it should be registered as the last one.
+ * @author bartosz.michalik@amartus.com
+ */
+public class ExtractSharedDefinitions implements Consumer<Swagger>, ReferenceGraph.Maintaining {
+    private static final Logger log = LoggerFactory.getLogger(ExtractSharedDefinitions.class);
+    private static final String RESPONSES_PREFIX = "#/responses/";
+    private static final String PARAMETERS_PREFIX = "#/parameters/";
+
+    @Override
+    public void accept(Swagger swagger) {
+        if(swagger.getPaths() == null) return;
+        List<Operation> operations = swagger.getPaths().values().stream()
+                .flatMap(p -> p.getOperations().stream())
+                .collect(Collectors.toList());
+
+        extractResponses(swagger, operations);
+        extractParameters(swagger, operations);
+    }
+
+    private void extractResponses(Swagger swagger, List<Operation> operations) {
+        Map<String, Long> usage = operations.stream()
+                .filter(o -> o.getResponses() != null)
+                .flatMap(o -> o.getResponses().values().stream())
+                .filter(this::descriptionOnly)
+                .collect(Collectors.groupingBy(Response::getDescription, LinkedHashMap::new, Collectors.counting()));
+
+        Map<String, Response> refs = new HashMap<>();
+        usage.forEach((description, cnt) -> {
+            if(cnt < 2) return;
+            String name = uniqueName(BindingMapping.getClassName(description), swagger.getResponses());
+            log.debug("extracting response '{}' used {} times as {}", description, cnt, name);
+            if(swagger.getResponses() == null) swagger.setResponses(new TreeMap<>());
+            swagger.response(name, new Response().description(description));
+            refs.put(description, new RefResponse(RESPONSES_PREFIX + name));
+        });
+
+        if(refs.isEmpty()) return;
+
+        operations.stream().filter(o -> o.getResponses() != null).forEach(o -> {
+            Map<String, Response> responses = new LinkedHashMap<>();
+            o.getResponses().forEach((code, r) -> responses.put(code, descriptionOnly(r) ? refs.getOrDefault(r.getDescription(), r) : r));
+            o.setResponses(responses);
+        });
+    }
+
+    private void extractParameters(Swagger swagger, List<Operation> operations) {
+        Map<Parameter, Long> usage = operations.stream()
+                .filter(o -> o.getParameters() != null)
+                .flatMap(o -> o.getParameters().stream())
+                .filter(this::shareable)
+                .collect(Collectors.groupingBy(Function.identity(), LinkedHashMap::new, Collectors.counting()));
+
+        Map<Parameter, Parameter> refs = new HashMap<>();
+        usage.forEach((param, cnt) -> {
+            if(cnt < 2) return;
+            String name = uniqueName(param.getName(), swagger.getParameters());
+            log.debug("extracting parameter '{}' used {} times as {}", param.getName(), cnt, name);
+            if(swagger.getParameters() == null) swagger.setParameters(new TreeMap<>());
+            swagger.parameter(name, param);
+            refs.put(param, new RefParameter(PARAMETERS_PREFIX + name));
+        });
+
+        if(refs.isEmpty()) return;
+
+        operations.stream().filter(o -> o.getParameters() != null).forEach(o ->
+            o.setParameters(o.getParameters().stream()
+                    .map(p -> shareable(p) ? refs.getOrDefault(p, p) : p)
+                    .collect(Collectors.toList()))
+        );
+    }
+
+    private boolean descriptionOnly(Response r) {
+        return !(r instanceof RefResponse)
+                && r.getDescription() != null
+                && r.getSchema() == null
+                && (r.getHeaders() == null || r.getHeaders().isEmpty())
+                && (r.getExamples() == null || r.getExamples().isEmpty())
+                && (r.getVendorExtensions() == null || r.getVendorExtensions().isEmpty());
+    }
+
+    private boolean shareable(Parameter p) {
+        return !(p instanceof BodyParameter) && !(p instanceof RefParameter);
+    }
+
+    private String uniqueName(String name, Map<String, ?> existing) {
+        if(existing == null || !existing.containsKey(name)) return name;
+        int idx = 1;
+        while(existing.containsKey(name + idx)) {
+            idx++;
+        }
+        return name + idx;
+    }
+}
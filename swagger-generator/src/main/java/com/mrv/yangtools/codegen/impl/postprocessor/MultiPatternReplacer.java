@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import java.util.*;
+
+/**
+ * Replace occurrences of many keys in a text in a single scan (Aho-Corasick automaton built once for all keys).
+ * Matches are resolved leftmost first and the longest key wins for matches starting at the same position.
+ * Replaced fragments are not scanned again.
+ * @author bartosz.michalik@amartus.com
+ */
+class MultiPatternReplacer {
+    private final Map<String, String> replacements;
+    private final Node root = new Node();
+
+    MultiPatternReplacer(Map<String, String> replacements) {
+        this.replacements = replacements;
+        replacements.keySet().stream().filter(k -> !k.isEmpty()).forEach(this::add);
+        link();
+    }
+
+    /**
+     * @param text to be rewritten
+     * @return text with all keys replaced or the same instance if there is nothing to replace
+     */
+    String replace(String text) {
+        if(text == null || text.isEmpty() || root.next.isEmpty()) return text;
+
+        // longest key starting at a given position
+        Map<Integer, String> matches = null;
+        Node current = root;
+        for(int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            while(current != root && !current.next.containsKey(c)) {
+                current = current.fail;
+            }
+            current = current.next.getOrDefault(c, root);
+            for(Node out = current.key != null ? current : current.output; out != null; out = out.output) {
+                if(matches == null) matches = new HashMap<>();
+                int start = i - out.key.length() + 1;
+                String known = matches.get(start);
+                if(known == null || known.length() < out.key.length()) {
+                    matches.put(start, out.key);
+                }
+            }
+        }
+        if(matches == null) return text;
+
+        StringBuilder result = new StringBuilder(text.length());
+        int pos = 0;
+        while(pos < text.length()) {
+            String key = matches.get(pos);
+            if(key != null) {
+                result.append(replacements.get(key));
+                pos += key.length();
+            } else {
+                result.append(text.charAt(pos++));
+            }
+        }
+        return result.toString();
+    }
+
+    private void add(String key) {
+        Node node = root;
+        for(int i = 0; i < key.length(); i++) {
+            node = node.next.computeIfAbsent(key.charAt(i), c -> new Node());
+        }
+        node.key = key;
+    }
+
+    private void link() {
+        Deque<Node> queue = new ArrayDeque<>();
+        root.next.values().forEach(n -> {
+            n.fail = root;
+            queue.add(n);
+        });
+
+        while(!queue.isEmpty()) {
+            Node node = queue.poll();
+            node.next.forEach((c, child) -> {
+                Node fail = node.fail;
+                while(fail != root && !fail.next.containsKey(c)) {
+                    fail = fail.fail;
+                }
+                Node target = fail.next.get(c);
+                child.fail = target != null && target != child ? target : root;
+                child.output = child.fail.key != null ? child.fail : child.fail.output;
+                queue.add(child);
+            });
+        }
+    }
+
+    private static class Node {
+        private final Map<Character, Node> next = new HashMap<>();
+        private Node fail;
+        //closest node on fail chain that ends a key
+        private Node output;
+        private String key;
+    }
+}
@@ -16,8 +16,6 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import static com.mrv.yangtools.codegen.impl.postprocessor.SwaggerRefHelper.*;
 
@@ -27,25 +25,21 @@ import static com.mrv.yangtools.codegen.impl.postprocessor.SwaggerRefHelper.*;
  * If nothing is specified swagger model remains intact.
  * @author bartosz.michalik@amartus.com
  */
-public class PathPrunner implements Consumer<Swagger> {
+public class PathPrunner implements Consumer<Swagger>, ReferenceGraph.Maintaining {
 
     private final Logger log = LoggerFactory.getLogger(PathPrunner.class);
 
-    private final List<String> exclude;
+    private final PrefixTrie exclude;
     private Set<String> types;
-    private Set<String> pathMatchers;
+    private PrefixTrie pathMatchers;
 
     /**
      * @param excludePrefixes excluded from analysis
      */
     public PathPrunner(String... excludePrefixes) {
-        this.exclude = Arrays.asList(excludePrefixes);
+        this.exclude = new PrefixTrie(Arrays.asList(excludePrefixes));
         this.types = new HashSet<>();
-        this.pathMatchers = new HashSet<>();
-    }
-
-    private Predicate<String> startsWith(Collection<String> prefixes) {
-        return candidate -> prefixes.stream().anyMatch(candidate::startsWith);
+        this.pathMatchers = new PrefixTrie();
     }
 
     /**
@@ -77,34 +71,25 @@ public class PathPrunner implements Consumer<Swagger> {
         new TypePruner(swagger).prune();
     }
 
-    private static Stream<String> inheritenceStructure(String type, Map<String, TypeNode> hierarchy) {
-        return Stream.concat(Stream.of(type),
-            hierarchy.get(type).getReferencing().stream().flatMap(tn -> inheritenceStructure(tn.type, hierarchy)));
-    }
-
     private class TypePruner {
         private final Swagger swagger;
-        private final Predicate<String> excludedPaths;
-        private final Map<String, TypeNode> hierarchy;
+        private final ReferenceGraph hierarchy;
 
         private TypePruner(Swagger swagger) {
             this.swagger = swagger;
-            excludedPaths = startsWith(exclude);
-            hierarchy = buildTypeHierarchy(swagger);
+            hierarchy = ReferenceGraph.of(swagger);
         }
 
         void prune() {
-            final Set<String> toRemove = swagger.getPaths().entrySet().stream()
-                    .filter(e -> !excludedPaths.test(e.getKey()))
+            Map<String, Path> paths = swagger.getPaths();
+            final PrefixTrie toRemove = new PrefixTrie();
+            paths.entrySet().stream()
+                    .filter(e -> !exclude.test(e.getKey()))
                     .filter(e -> removeByType(e.getKey(), e.getValue()))
-                    .map(Map.Entry::getKey)
-                    .collect(Collectors.toSet());
-
-            swagger.setPaths(swagger.getPaths().entrySet().stream().filter(p -> {
-                boolean remove = toRemove.stream().anyMatch(tR -> p.getKey().startsWith(tR));
-                if(remove) log.debug("Removing path based on type {}", p.getKey());
-                return !remove;
-            }).collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue)));
+                    .forEach(e -> toRemove.add(e.getKey()));
+
+            if(toRemove.isEmpty()) return;
+            remove(swagger, paths, toRemove, hierarchy::pathRemoved);
         }
 
         /**
@@ -140,7 +125,7 @@ public class PathPrunner implements Consumer<Swagger> {
                 log.warn("not recognized {} path {}. Skipping.", operationName, pathName);
                 return false;
             }
-            return inheritenceStructure(modelId, hierarchy).noneMatch(m -> types.contains(m));
+            return hierarchy.hierarchy(modelId).noneMatch(m -> types.contains(m));
         }
 
         private boolean toRemoveByResponse(String pathName, Operation o) {
@@ -150,35 +135,36 @@ public class PathPrunner implements Consumer<Swagger> {
                 return false;
             }
 
-            return inheritenceStructure(modelId, hierarchy).noneMatch(m -> types.contains(m));
+            return hierarchy.hierarchy(modelId).noneMatch(m -> types.contains(m));
         }
     }
 
     private void prunePaths(Swagger swagger) {
-        Predicate<String> match = startsWith(pathMatchers);
-        Predicate<String> excluded = startsWith(exclude);
-
         if(pathMatchers.isEmpty()) return;
 
-        Map<String, Path> paths = swagger.getPaths();
-        Set<String> toRemove = paths.entrySet().stream()
-                .filter(e -> !excluded.test(e.getKey()) && match.test(e.getKey()))
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toSet());
-        toRemove.forEach(p -> {
-            log.debug("Removing path based on type {}", p);
-            paths.remove(p);
-        });
-        swagger.setPaths(paths);
+        Predicate<String> match = p -> !exclude.test(p) && pathMatchers.test(p);
+        List<String> removed = new ArrayList<>();
+        remove(swagger, swagger.getPaths(), match, removed::add);
+        ReferenceGraph.update(swagger, g -> removed.forEach(g::pathRemoved));
     }
 
-    private Map<String, TypeNode> buildTypeHierarchy(Swagger swagger) {
-
-        TypesUsageTreeBuilder builder = new TypesUsageTreeBuilder();
-        swagger.getDefinitions().forEach((type, value) -> {
-            Stream<String> references = getReferences(type, value);
-            builder.referencing(type, references);
-        });
-        return builder.build();
+    /**
+     * Remove matching paths keeping the order of the remaining ones
+     * @param swagger model
+     * @param paths of the model
+     * @param match paths to remove
+     * @param removed callback for each removed path
+     */
+    private void remove(Swagger swagger, Map<String, Path> paths, Predicate<String> match, Consumer<String> removed) {
+        Iterator<String> it = paths.keySet().iterator();
+        while(it.hasNext()) {
+            String path = it.next();
+            if(match.test(path)) {
+                log.debug("Removing path {}", path);
+                it.remove();
+                removed.accept(path);
+            }
+        }
+        swagger.setPaths(paths);
     }
 }
@@ -7,15 +7,13 @@ import io.swagger.models.properties.RefProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedHashMap;
-import java.util.Map;
-import java.util.Objects;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Consumer;
 
 /**
  * Wrap payload with a single rooted, works with {@link com.mrv.yangtools.codegen.impl.path.rfc8040.RestconfPathPrinter}
- * path schema only
+ * path schema only.
+ * Each wrapper is built once and shared by all operations with the same payload.
  *
  * @author bartosz.michalik@amartus.com
  */
@@ -23,24 +21,39 @@ public abstract class PayloadWrapperProcessor implements Consumer<Swagger> {
     private static final Logger log = LoggerFactory.getLogger(PayloadWrapperProcessor.class);
     private static final String POSTFIX = "Wrapper";
     private Swagger swagger;
+    // wrapper name by wrapped definition
+    private Map<String, String> wrappers;
+    // wrapper name by wrapped definition and module
+    private Map<String, String> postWrappers;
+    // names of the wrappers in postWrappers
+    private Set<String> postWrapperNames;
+    // RPC outputs replaced by their wrappers
+    private Set<String> toRemove;
 
     @Override
     public void accept(Swagger swagger) {
         this.swagger = Objects.requireNonNull(swagger);
+        wrappers = new HashMap<>();
+        postWrappers = new HashMap<>();
+        postWrapperNames = new HashSet<>();
+        toRemove = new LinkedHashSet<>();
+
         this.swagger.getPaths().forEach(this::processPath);
+        toRemove.forEach(swagger.getDefinitions()::remove);
     }
 
     private void processPath(String key, Path path) {
+        final String propertyName = toProperty(key);
         if (key.startsWith("/operations")) {
-            processOperation(path.getPost(), toProperty(key), true);
+            processOperation(path.getPost(), propertyName, true);
             return;
         }
 
-        processOperation(path.getGet(), toProperty(key));
-        processOperation(path.getPut(), toProperty(key));
-        processOperation(path.getPost(), toProperty(key), true);
-        processOperation(path.getPatch(), toProperty(key));
-        processOperation(path.getDelete(), toProperty(key));
+        processOperation(path.getGet(), propertyName);
+        processOperation(path.getPut(), propertyName);
+        processOperation(path.getPost(), propertyName, true);
+        processOperation(path.getPatch(), propertyName);
+        processOperation(path.getDelete(), propertyName);
     }
 
     protected abstract String toProperty(String path);
@@ -49,68 +62,76 @@ public abstract class PayloadWrapperProcessor implements Consumer<Swagger> {
         processOperation(operation, propertyName, false);
     }
 
-    private void processOperation(Operation operation, String propertyName, Boolean isPost) {
+    private void processOperation(Operation operation, String propertyName, boolean isPost) {
         if (operation == null) {
             return;
         }
 
+        String moduleName = operation.getTags() == null || operation.getTags().isEmpty() ? null : operation.getTags().get(0);
+
         operation.getResponses().values().stream()
                 .filter(r -> r.getSchema() instanceof RefProperty)
-                .forEach(r -> wrap(propertyName, r, operation, isPost));
+                .forEach(r -> wrap(propertyName, r, moduleName, isPost));
 
         operation.getParameters().stream()
                 .filter(p -> p instanceof BodyParameter)
                 .map(p -> (BodyParameter) p)
                 .filter(p -> p.getSchema() instanceof RefModel)
-                .forEach(param -> wrap(propertyName, param, operation, isPost));
+                .forEach(param -> wrap(propertyName, param, moduleName, isPost));
 
 
     }
 
-    private void wrap(String propertyName, Response r, Operation operation, Boolean isRpcOutput) {
+    private void wrap(String propertyName, Response r, String moduleName, boolean isRpcOutput) {
         RefProperty prop = (RefProperty) r.getSchema();
-        String wrapperName;
-        if (isRpcOutput) {
-            wrapperName = wrapPostBodyParameter(prop.getSimpleRef(), operation.getTags().get(0));
-            swagger.getDefinitions().remove(prop.getSimpleRef());
+        String wrapperName = isRpcOutput ? wrapPostBodyParameter(prop.getSimpleRef(), moduleName) : null;
+        if (wrapperName != null) {
+            toRemove.add(prop.getSimpleRef());
         } else {
-            wrapperName = wrap(propertyName, prop.getSimpleRef(), operation.getTags().get(0));
+            wrapperName = wrap(propertyName, prop.getSimpleRef(), moduleName);
         }
         r.setSchema(new RefProperty(wrapperName));
     }
 
-    private void wrap(String propertyName, BodyParameter param, Operation operation, Boolean isPost) {
+    private void wrap(String propertyName, BodyParameter param, String moduleName, boolean isPost) {
         RefModel m = (RefModel) param.getSchema();
-        String wrapperName;
-        if (isPost) {
-            wrapperName = wrapPostBodyParameter(m.getSimpleRef(), operation.getTags().get(0));
-        } else {
-            wrapperName = wrap(propertyName, m.getSimpleRef(), operation.getTags().get(0));
+        String wrapperName = isPost ? wrapPostBodyParameter(m.getSimpleRef(), moduleName) : null;
+        if (wrapperName == null) {
+            wrapperName = wrap(propertyName, m.getSimpleRef(), moduleName);
         }
         param.setSchema(new RefModel(wrapperName));
     }
 
     private String wrap(String propertyName, String simpleRef, String moduleName) {
-        String wrapperName = simpleRef + POSTFIX;
-        Model model = swagger.getDefinitions().get(wrapperName);
-        if (model == null) {
-            addWrappingModel(wrapperName, propertyName, simpleRef);
-        }
-        model = swagger.getDefinitions().get(wrapperName);
-        Set<String> keySet = model.getProperties().keySet();
-        for (String key : keySet) {
-            if (!key.contains(":")) {
-                Property property = model.getProperties().get(key);
-                model.getProperties().put(moduleName + ":" + key, property);
-                model.getProperties().remove(key);
+        return wrappers.computeIfAbsent(simpleRef, ref -> {
+            String wrapperName = ref + POSTFIX;
+            if (!swagger.getDefinitions().containsKey(wrapperName)) {
+                addWrappingModel(wrapperName, qualified(moduleName, propertyName), ref);
             }
-        }
-        return wrapperName;
+            return wrapperName;
+        });
     }
 
+    /**
+     * @return name of a model with the payload properties qualified with the module or null if payload is not a plain model
+     */
     private String wrapPostBodyParameter(String simpleRef, String moduleName) {
-        String wrapperName = simpleRef + POSTFIX + "_post";
-        ModelImpl originalModel = (ModelImpl) swagger.getDefinitions().get(simpleRef);
+        if (!(swagger.getDefinitions().get(simpleRef) instanceof ModelImpl)) {
+            return postWrappers.get(simpleRef + ":" + moduleName);
+        }
+        return postWrappers.computeIfAbsent(simpleRef + ":" + moduleName, k -> {
+            String wrapperName = simpleRef + POSTFIX + "_post";
+            if (!postWrapperNames.add(wrapperName)) {
+                // the same payload used in another module
+                wrapperName = wrapperName + "_" + moduleName;
+                postWrapperNames.add(wrapperName);
+            }
+            swagger.addDefinition(wrapperName, toPostModel((ModelImpl) swagger.getDefinitions().get(simpleRef), moduleName));
+            return wrapperName;
+        });
+    }
+
+    private ModelImpl toPostModel(ModelImpl originalModel, String moduleName) {
         ModelImpl postModel = new ModelImpl();
         originalModel.cloneTo(postModel);
         postModel.setType(originalModel.getType());
@@ -123,18 +144,14 @@ public abstract class PayloadWrapperProcessor implements Consumer<Swagger> {
         postModel.setXml(originalModel.getXml());
         postModel.setDefaultValue(originalModel.getDefaultValue());
         if(originalModel.getProperties()!=null) {
-            Set<String> keySet = originalModel.getProperties().keySet();
-            for (String key : keySet) {
-                Property property = originalModel.getProperties().get(key);
-                if (!key.contains(":")) {
-                    postModel.addProperty(moduleName + ":" + key, property);
-                } else {
-                    postModel.addProperty(key, property);
-                }
-            }
+            originalModel.getProperties().forEach((key, property) -> postModel.addProperty(qualified(moduleName, key), property));
         }
-        swagger.addDefinition(wrapperName, postModel);
-        return wrapperName;
+        return postModel;
+    }
+
+    private static String qualified(String moduleName, String name) {
+        if (moduleName == null || name.contains(":")) return name;
+        return moduleName + ":" + name;
     }
 
     private void addWrappingModel(String wrapperName, String propertyName, String simpleRef) {
@@ -0,0 +1,66 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Set of path prefixes. Checking whether a path starts with any of the prefixes
+ * takes time proportional to the path length regardless of the number of prefixes.
+ * @author bartosz.michalik@amartus.com
+ */
+class PrefixTrie implements Predicate<String> {
+    private final Node root = new Node();
+    private boolean empty = true;
+
+    PrefixTrie() {}
+
+    PrefixTrie(Collection<String> prefixes) {
+        prefixes.forEach(this::add);
+    }
+
+    PrefixTrie add(String prefix) {
+        Node node = root;
+        for(int i = 0; i < prefix.length(); i++) {
+            node = node.next.computeIfAbsent(prefix.charAt(i), c -> new Node());
+        }
+        node.terminal = true;
+        empty = false;
+        return this;
+    }
+
+    boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * @param path to check
+     * @return true if path starts with any of the prefixes
+     */
+    @Override
+    public boolean test(String path) {
+        Node node = root;
+        if(node.terminal) return true;
+        for(int i = 0; i < path.length(); i++) {
+            node = node.next.get(path.charAt(i));
+            if(node == null) return false;
+            if(node.terminal) return true;
+        }
+        return false;
+    }
+
+    private static class Node {
+        private final Map<Character, Node> next = new HashMap<>();
+        private boolean terminal;
+    }
+}
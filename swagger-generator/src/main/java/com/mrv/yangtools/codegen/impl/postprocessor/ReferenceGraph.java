@@ -0,0 +1,305 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import io.swagger.models.Model;
+import io.swagger.models.Path;
+import io.swagger.models.Swagger;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static com.mrv.yangtools.codegen.impl.postprocessor.SwaggerRefHelper.getReferences;
+import static com.mrv.yangtools.codegen.impl.postprocessor.SwaggerRefHelper.getUses;
+
+/**
+ * Index of relations between definitions and paths of a swagger model:
+ * <ul>
+ *     <li>references - definitions that are part of composition (all-of) of a given definition</li>
+ *     <li>uses - definitions pointed by properties of a given definition or by payloads of path operations</li>
+ *     <li>roots - paths</li>
+ * </ul>
+ * The graph is attached to a swagger model for the time of postprocessing (see {@link #attach(Swagger)})
+ * and shared by the postprocessors, which update it when they add, remove or replace definitions and paths.
+ * Postprocessors that do not implement {@link Maintaining} invalidate the graph, so it is rebuilt on next use.
+ * For a model that is not attached {@link #of(Swagger)} builds a new graph each time.
+ * @author bartosz.michalik@amartus.com
+ */
+public class ReferenceGraph {
+    private static final Logger log = LoggerFactory.getLogger(ReferenceGraph.class);
+
+    private static final Map<Swagger, Holder> attached = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    /**
+     * Marker for postprocessors that keep the graph of the processed model up to date
+     */
+    public interface Maintaining {}
+
+    private final Map<String, TypeNode> types = new HashMap<>();
+    private final Map<String, TypeNode> paths = new HashMap<>();
+
+    private ReferenceGraph(Swagger swagger) {
+        if(swagger.getDefinitions() != null) {
+            swagger.getDefinitions().forEach(this::definitionChanged);
+        }
+        if(swagger.getPaths() != null) {
+            swagger.getPaths().forEach(this::pathChanged);
+        }
+        log.debug("Reference graph built for {} definitions and {} paths", types.size(), paths.size());
+    }
+
+    /**
+     * Share graph of the model between consumers until {@link #detach(Swagger)}
+     * @param swagger model
+     */
+    public static void attach(Swagger swagger) {
+        attached.put(swagger, new Holder());
+    }
+
+    public static void detach(Swagger swagger) {
+        attached.remove(swagger);
+    }
+
+    /**
+     * Mark graph of the model as outdated
+     * @param swagger model
+     */
+    public static void invalidate(Swagger swagger) {
+        Holder holder = attached.get(swagger);
+        if(holder != null) holder.graph = null;
+    }
+
+    /**
+     * @param swagger model
+     * @return shared graph of the attached model or a new graph
+     */
+    public static ReferenceGraph of(Swagger swagger) {
+        Holder holder = attached.get(swagger);
+        if(holder == null) return new ReferenceGraph(swagger);
+        if(holder.graph == null) {
+            holder.graph = new ReferenceGraph(swagger);
+        }
+        return holder.graph;
+    }
+
+    /**
+     * Apply changes to the graph of attached model if it has been already built. Otherwise there is nothing to keep up to date.
+     * @param swagger model
+     * @param update to apply
+     */
+    public static void update(Swagger swagger, Consumer<ReferenceGraph> update) {
+        Holder holder = attached.get(swagger);
+        if(holder != null && holder.graph != null) {
+            update.accept(holder.graph);
+        }
+    }
+
+    /**
+     * Wrap consumer so the graph is invalidated after it modifies the model, unless it maintains the graph by itself
+     * @param consumer to wrap
+     * @return consumer that keeps the graph consistent
+     */
+    public static Consumer<Swagger> guard(Consumer<Swagger> consumer) {
+        if(consumer instanceof Maintaining) return consumer;
+        return consumer.andThen(ReferenceGraph::invalidate);
+    }
+
+    TypeNode node(String type) {
+        return types.get(type);
+    }
+
+    public boolean contains(String type) {
+        return types.containsKey(type);
+    }
+
+    public Set<String> types() {
+        return Collections.unmodifiableSet(types.keySet());
+    }
+
+    public Set<String> roots() {
+        return Collections.unmodifiableSet(paths.keySet());
+    }
+
+    /**
+     * @param type definition
+     * @return definitions in all-of of the type
+     */
+    public Set<String> references(String type) {
+        return names(types.get(type), TypeNode::getReferencing);
+    }
+
+    /**
+     * @param type definition
+     * @return definitions having the type in all-of
+     */
+    public Set<String> referencedBy(String type) {
+        return names(types.get(type), TypeNode::getReferencedBy);
+    }
+
+    /**
+     * @param type definition or path
+     * @return definitions used by properties of the type or payloads of the path
+     */
+    public Set<String> uses(String type) {
+        TypeNode node = types.containsKey(type) ? types.get(type) : paths.get(type);
+        return names(node, TypeNode::getUsing);
+    }
+
+    /**
+     * @param type definition
+     * @return definitions and paths using the type
+     */
+    public Set<String> usedBy(String type) {
+        return names(types.get(type), TypeNode::getUsedBy);
+    }
+
+    /**
+     * @param type definition
+     * @return true if the type is used or referenced by any definition or path
+     */
+    public boolean isUsed(String type) {
+        TypeNode node = types.get(type);
+        return node != null && node.isUsed();
+    }
+
+    /**
+     * @param type definition
+     * @return type and all definitions in its composition hierarchy
+     */
+    public Stream<String> hierarchy(String type) {
+        TypeNode node = types.get(type);
+        if(node == null) return Stream.of(type);
+        Set<TypeNode> visited = new LinkedHashSet<>();
+        Deque<TypeNode> toVisit = new ArrayDeque<>();
+        toVisit.push(node);
+        while(!toVisit.isEmpty()) {
+            TypeNode current = toVisit.pop();
+            if(visited.add(current)) {
+                current.getReferencing().forEach(toVisit::push);
+            }
+        }
+        return visited.stream().map(t -> t.type);
+    }
+
+    /**
+     * Definition has been added or modified
+     * @param type name
+     * @param model definition
+     */
+    public void definitionChanged(String type, Model model) {
+        TypeNode node = types.computeIfAbsent(type, TypeNode::new);
+        node.clearOutgoing();
+        getReferences(type, model).map(this::type).forEach(r -> r.referencedBy(node));
+        getUses(type, model).map(this::type).forEach(u -> u.usedBy(node));
+    }
+
+    /**
+     * Definition has been removed
+     * @param type name
+     */
+    public void definitionRemoved(String type) {
+        TypeNode node = types.get(type);
+        if(node == null) return;
+        node.clearOutgoing();
+        if(node.getUsedBy().isEmpty() && node.getReferencedBy().isEmpty()) {
+            types.remove(type);
+        }
+    }
+
+    /**
+     * Definitions have been removed together, so relations between them are dropped as well
+     * @param removed names
+     */
+    public void definitionsRemoved(Collection<String> removed) {
+        removed.stream().map(types::get).filter(Objects::nonNull).forEach(TypeNode::clearOutgoing);
+        removed.forEach(this::definitionRemoved);
+    }
+
+    /**
+     * Mark phase of mark-and-sweep: definitions reachable from paths and additional roots
+     * via uses (including items of array models) and all-of references. Each node and relation is visited once.
+     * @param additionalRoots definitions to be considered used
+     * @return reachable definitions
+     */
+    public Set<String> reachable(Stream<String> additionalRoots) {
+        Set<TypeNode> marked = new HashSet<>();
+        Deque<TypeNode> toVisit = new ArrayDeque<>(paths.values());
+        additionalRoots.map(types::get).filter(Objects::nonNull).forEach(toVisit::push);
+        while(!toVisit.isEmpty()) {
+            TypeNode current = toVisit.pop();
+            if(marked.add(current)) {
+                current.getUsing().forEach(toVisit::push);
+                current.getReferencing().forEach(toVisit::push);
+            }
+        }
+        return marked.stream().filter(t -> !t.isRoot()).map(t -> t.type).collect(Collectors.toSet());
+    }
+
+    /**
+     * Path has been added or its operations modified
+     * @param name path
+     * @param path definition
+     */
+    public void pathChanged(String name, Path path) {
+        TypeNode node = paths.computeIfAbsent(name, n -> new TypeNode(n, true));
+        node.clearOutgoing();
+        path.getOperations().stream().flatMap(SwaggerRefHelper::getUses)
+                .map(this::type).forEach(u -> u.usedBy(node));
+    }
+
+    public void pathRemoved(String name) {
+        TypeNode node = paths.remove(name);
+        if(node != null) node.clearOutgoing();
+    }
+
+    /**
+     * All references to the replaced definitions now point to their replacements, replaced definitions are removed.
+     * @param replacements from replaced to replacing definition name
+     * @param swagger model with the replacing definitions
+     */
+    public void replaced(Map<String, String> replacements, Swagger swagger) {
+        replacements.forEach((from, to) -> {
+            TypeNode replaced = types.remove(from);
+            if(replaced == null) return;
+            replaced.clearOutgoing();
+            TypeNode replacing = type(to);
+            new ArrayList<>(replaced.getUsedBy()).forEach(u -> {
+                u.getUsing().remove(replaced);
+                replacing.usedBy(u);
+            });
+            new ArrayList<>(replaced.getReferencedBy()).forEach(r -> {
+                r.getReferencing().remove(replaced);
+                replacing.referencedBy(r);
+            });
+        });
+        new HashSet<>(replacements.values()).forEach(to -> {
+            Model model = swagger.getDefinitions() == null ? null : swagger.getDefinitions().get(to);
+            if(model != null) definitionChanged(to, model);
+        });
+    }
+
+    private TypeNode type(String name) {
+        return types.computeIfAbsent(name, TypeNode::new);
+    }
+
+    private static Set<String> names(TypeNode node, Function<TypeNode, Set<TypeNode>> relation) {
+        if(node == null) return Collections.emptySet();
+        return relation.apply(node).stream().map(t -> t.type).collect(Collectors.toSet());
+    }
+
+    private static class Holder {
+        private ReferenceGraph graph;
+    }
+}
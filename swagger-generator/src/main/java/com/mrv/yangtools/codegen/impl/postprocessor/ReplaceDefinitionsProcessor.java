@@ -12,84 +12,209 @@ package com.mrv.yangtools.codegen.impl.postprocessor;
 import io.swagger.models.*;
 import io.swagger.models.parameters.BodyParameter;
 import io.swagger.models.parameters.Parameter;
-import io.swagger.models.properties.ArrayProperty;
-import io.swagger.models.properties.Property;
-import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Map;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Processor that allows replacing one definitions with another in any swagger.
  * This implementation is simple and limited only to the type definitions that are aggregators of references.
  * @author bartosz.michalik@amartus.com
  */
-public abstract class ReplaceDefinitionsProcessor implements Consumer<Swagger> {
+public abstract class ReplaceDefinitionsProcessor implements Consumer<Swagger>, ReferenceGraph.Maintaining {
     private final Logger log = LoggerFactory.getLogger(ReplaceDefinitionsProcessor.class);
     @Override
     public void accept(Swagger target) {
-        Map<String, String> replacements = prepareForReplacement(target);
+        Map<String, String> replacements = resolve(analyse(target).replacements(Collections.emptyMap()));
 
         log.debug("{} replacement found for definitions", replacements.size());
+        if(replacements.isEmpty()) return;
+
+        ReferenceGraph graph = ReferenceGraph.of(target);
         log.trace("replacing paths");
+        MultiPatternReplacer descriptions = new MultiPatternReplacer(replacements);
         target.getPaths().values().stream().flatMap(p -> p.getOperations().stream())
-                .forEach(o -> fixOperation(o, replacements));
+                .forEach(o -> fixOperation(o, replacements, descriptions));
 
-        target.getDefinitions().forEach((key, value) -> fixModel(key, value, replacements));
+        // only definitions pointing to the replaced ones need to be fixed
+        replacements.keySet().stream()
+                .flatMap(r -> Stream.concat(graph.usedBy(r).stream(), graph.referencedBy(r).stream()))
+                .distinct()
+                .forEach(key -> {
+                    Model value = target.getDefinitions().get(key);
+                    if(value != null) fixModel(key, value, replacements);
+                });
         replacements.keySet().forEach(r -> {
             log.debug("removing {} model from swagger definitions", r);
             target.getDefinitions().remove(r);
         });
+        graph.replaced(replacements, target);
     }
 
     protected abstract Map<String, String> prepareForReplacement(Swagger swagger);
 
-    private void fixModel(String name, Model m, Map<String, String> replacements) {
-        ModelImpl fixProperties = null;
-        if(m instanceof ModelImpl) {
-            fixProperties = (ModelImpl) m;
+    /**
+     * Compute replacements as if pending replacements were already applied to the model.
+     * Used when replacements of several processors are applied in a single pass (see {@link CombinedReplacements}).
+     * @param swagger model
+     * @param pending replacements of processors preceding this one
+     * @return replacements
+     */
+    protected Map<String, String> prepareForReplacement(Swagger swagger, Map<String, String> pending) {
+        return prepareForReplacement(swagger);
+    }
+
+    /**
+     * Analyse the model upfront, independently of replacements of other processors.
+     * The analysis must neither modify the model nor use its {@link ReferenceGraph},
+     * as analyses of processors combined in {@link CombinedReplacements} run concurrently on the same model.
+     * By default nothing is analysed upfront.
+     * @param swagger model
+     * @return computation of replacements given pending replacements of the preceding processors
+     */
+    protected Analysis analyse(Swagger swagger) {
+        return pending -> prepareForReplacement(swagger, pending);
+    }
+
+    /**
+     * Result of {@link #analyse(Swagger)}
+     */
+    @FunctionalInterface
+    protected interface Analysis {
+        Map<String, String> replacements(Map<String, String> pending);
+    }
+
+    /**
+     * Payloads are wrapped per operation, so definitions used directly by paths are not shared
+     * @param graph of the model
+     * @param type definition
+     * @return true if the type is used by any path
+     */
+    static boolean isPayload(ReferenceGraph graph, String type) {
+        Set<String> roots = graph.roots();
+        return graph.usedBy(type).stream().anyMatch(roots::contains);
+    }
+
+    /**
+     * No composition can get the same part twice, replacements that would merge two parts of a composition are dropped
+     * @param graph of the model
+     * @param replacements to be checked, modified in place
+     */
+    static void dropRepeatedParts(ReferenceGraph graph, Map<String, String> replacements) {
+        Map<String, String> resolved = resolve(replacements);
+        graph.types().forEach(type -> {
+            Set<String> parts = new HashSet<>();
+            graph.references(type).stream().sorted().forEach(r -> {
+                if(!parts.add(resolved.getOrDefault(r, r))) {
+                    replacements.remove(r);
+                }
+            });
+        });
+    }
+
+    /**
+     * Collapse chains of replacements (A &rarr; B, B &rarr; C) to their final target (A &rarr; C, B &rarr; C).
+     * Cycles are broken at the lexicographically smallest definition, which is kept in the model.
+     * @param replacements to resolve
+     * @return replacements pointing to definitions that are not replaced
+     */
+    static Map<String, String> resolve(Map<String, String> replacements) {
+        final Logger log = LoggerFactory.getLogger(ReplaceDefinitionsProcessor.class);
+        Map<String, String> direct = new HashMap<>(replacements);
+
+        for(String start : replacements.keySet()) {
+            Set<String> visited = new HashSet<>();
+            String current = start;
+            while(direct.containsKey(current) && visited.add(current)) {
+                current = direct.get(current);
+            }
+            if(direct.containsKey(current)) {
+                List<String> cycle = new ArrayList<>();
+                String member = current;
+                do {
+                    cycle.add(member);
+                    member = direct.get(member);
+                } while(!member.equals(current));
+                String kept = Collections.min(cycle);
+                log.warn("cyclic replacements {} kept {}", cycle, kept);
+                direct.remove(kept);
+            }
         }
 
-        if(m instanceof ComposedModel) {
+        Map<String, String> resolved = new HashMap<>();
+        direct.forEach((from, to) -> {
+            String target = to;
+            while(direct.containsKey(target)) {
+                target = direct.get(target);
+            }
+            resolved.put(from, target);
+        });
+        return resolved;
+    }
+
+    private void fixModel(String name, Model m, Map<String, String> replacements) {
+        Property items = SwaggerRefHelper.getItems(m);
+        if(items != null) {
+            if(fixProperty(items, replacements)) {
+                log.debug("fixing items of {}", name);
+            }
+        } else if(m instanceof ComposedModel) {
             ComposedModel cm = (ComposedModel) m;
             fixComposedModel(name, cm, replacements);
-            fixProperties =  cm.getAllOf().stream()
-                    .filter(c -> c instanceof ModelImpl).map(c -> (ModelImpl)c)
-                    .findFirst().orElse(null);
+            cm.getAllOf().stream()
+                    .filter(c -> c instanceof ModelImpl)
+                    .forEach(c -> fixProperties(name, (ModelImpl) c, replacements));
+        } else if(m instanceof ModelImpl) {
+            fixProperties(name, (ModelImpl) m, replacements);
         }
+    }
 
-        if(fixProperties == null) return;
-        if(fixProperties.getProperties() == null) {
-            if(fixProperties.getEnum() == null) {
+    private void fixProperties(String name, ModelImpl m, Map<String, String> replacements) {
+        if(m.getProperties() == null) {
+            if(m.getEnum() == null) {
                 log.warn("Empty model in {}", name);
             }
             return;
         }
-        fixProperties.getProperties().forEach((key, value) -> {
-            if (value instanceof RefProperty) {
-                if (fixProperty((RefProperty) value, replacements)) {
-                    log.debug("fixing property {} of {}", key, name);
-                }
-            } else if (value instanceof ArrayProperty) {
-                Property items = ((ArrayProperty) value).getItems();
-                if (items instanceof RefProperty) {
-                    if (fixProperty((RefProperty) items, replacements)) {
-                        log.debug("fixing property {} of {}", key, name);
-                    }
-                }
+        m.getProperties().forEach((key, value) -> {
+            if (fixProperty(value, replacements)) {
+                log.debug("fixing property {} of {}", key, name);
             }
         });
-
     }
-    private boolean fixProperty(RefProperty p, Map<String, String> replacements) {
-        if(replacements.containsKey(p.getSimpleRef())) {
-            p.set$ref(replacements.get(p.getSimpleRef()));
-            return true;
+
+    /**
+     * Fix references in property including references in array items and nested object properties
+     * @param p property
+     * @param replacements to apply
+     * @return true if any reference has been fixed
+     */
+    private boolean fixProperty(Property p, Map<String, String> replacements) {
+        if(p instanceof RefProperty) {
+            RefProperty ref = (RefProperty) p;
+            if(replacements.containsKey(ref.getSimpleRef())) {
+                ref.set$ref(replacements.get(ref.getSimpleRef()));
+                return true;
+            }
+            return false;
+        }
+        if(p instanceof ArrayProperty) {
+            return fixProperty(((ArrayProperty) p).getItems(), replacements);
+        }
+        if(p instanceof MapProperty) {
+            return fixProperty(((MapProperty) p).getAdditionalProperties(), replacements);
+        }
+        if(p instanceof ObjectProperty && ((ObjectProperty) p).getProperties() != null) {
+            boolean fixed = false;
+            for(Property nested : ((ObjectProperty) p).getProperties().values()) {
+                fixed |= fixProperty(nested, replacements);
+            }
+            return fixed;
         }
         return false;
     }
@@ -101,48 +226,55 @@ public abstract class ReplaceDefinitionsProcessor implements Consumer<Swagger> {
             int idx = m.getAllOf().indexOf(r);
             RefModel newRef = new RefModel(replacements.get(r.getSimpleRef()));
             m.getAllOf().set(idx, newRef);
-            if(m.getInterfaces().remove(r)) {
+            if(m.getInterfaces() != null && m.getInterfaces().remove(r)) {
                 m.getInterfaces().add(newRef);
             }
         });
     }
 
 
-    private void fixOperation(Operation operation, Map<String, String> replacements) {
+    private void fixOperation(Operation operation, Map<String, String> replacements, MultiPatternReplacer descriptions) {
         operation.getResponses().values()
-                .forEach(r -> fixResponse(r, replacements));
-        operation.getParameters().forEach(p -> fixParameter(p, replacements));
-        Optional<Map.Entry<String, String>> rep = replacements.entrySet().stream()
-                .filter(r -> operation.getDescription() != null && operation.getDescription().contains(r.getKey()))
-                .findFirst();
-        if(rep.isPresent()) {
-            log.debug("fixing description for '{}'", rep.get().getKey());
-            Map.Entry<String, String> entry = rep.get();
-            operation.setDescription(operation.getDescription().replace(entry.getKey(), entry.getValue()));
+                .forEach(r -> fixResponse(r, replacements, descriptions));
+        operation.getParameters().forEach(p -> fixParameter(p, replacements, descriptions));
+        String description = descriptions.replace(operation.getDescription());
+        if(description != operation.getDescription()) {
+            log.debug("fixing description for '{}'", operation.getOperationId());
+            operation.setDescription(description);
         }
 
     }
 
-    private void fixParameter(Parameter p, Map<String, String> replacements) {
+    private void fixParameter(Parameter p, Map<String, String> replacements, MultiPatternReplacer descriptions) {
         if(!(p instanceof BodyParameter)) return;
         BodyParameter bp = (BodyParameter) p;
+        if(SwaggerRefHelper.getItems(bp.getSchema()) != null) {
+            fixProperty(SwaggerRefHelper.getItems(bp.getSchema()), replacements);
+            return;
+        }
+        if(bp.getSchema() instanceof ModelImpl) {
+            fixProperties(bp.getName(), (ModelImpl) bp.getSchema(), replacements);
+            return;
+        }
         if(!(bp.getSchema() instanceof RefModel)) return;
         RefModel ref = (RefModel) bp.getSchema();
         if(replacements.containsKey(ref.getSimpleRef())) {
             String replacement = replacements.get(ref.getSimpleRef());
-            bp.setDescription(bp.getDescription().replace(ref.getSimpleRef(), replacement));
+            bp.setDescription(descriptions.replace(bp.getDescription()));
             bp.setSchema(new RefModel(replacement));
         }
 
     }
 
-    private void fixResponse(Response r, Map<String, String> replacements) {
-        if(! (r.getSchema() instanceof RefProperty)) return;
+    private void fixResponse(Response r, Map<String, String> replacements, MultiPatternReplacer descriptions) {
+        if(! (r.getSchema() instanceof RefProperty)) {
+            fixProperty(r.getSchema(), replacements);
+            return;
+        }
         RefProperty schema = (RefProperty) r.getSchema();
         if(replacements.containsKey(schema.getSimpleRef())) {
             String replacement = replacements.get(schema.getSimpleRef());
-            if(r.getDescription() != null)
-                r.setDescription(r.getDescription().replace(schema.getSimpleRef(), replacement));
+            r.setDescription(descriptions.replace(r.getDescription()));
             schema.setDescription(replacement);
             r.setSchema(new RefProperty(replacement));
         }
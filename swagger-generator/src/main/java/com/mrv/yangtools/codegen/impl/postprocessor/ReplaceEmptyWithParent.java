@@ -25,6 +25,12 @@ import java.util.stream.Collectors;
  */
 public class ReplaceEmptyWithParent extends  ReplaceDefinitionsProcessor {
 
+    @Override
+    protected Analysis analyse(Swagger swagger) {
+        Map<String, String> replacements = prepareForReplacement(swagger);
+        return pending -> replacements;
+    }
+
     @Override
     protected Map<String, String> prepareForReplacement(Swagger swagger) {
         return swagger.getDefinitions().entrySet()
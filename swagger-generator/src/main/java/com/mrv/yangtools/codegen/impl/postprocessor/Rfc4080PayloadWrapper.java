@@ -6,9 +6,10 @@ package com.mrv.yangtools.codegen.impl.postprocessor;
 public class Rfc4080PayloadWrapper extends PayloadWrapperProcessor {
     @Override
     protected String toProperty(String path) {
-        String[] split = path.split("/");
-        String lastSegment = split[split.length - 1];
-        split = lastSegment.split("=");
-        return split[0];
+        int end = path.length();
+        while (end > 0 && path.charAt(end - 1) == '/') end--;
+        int start = path.lastIndexOf('/', end - 1) + 1;
+        int keys = path.indexOf('=', start);
+        return path.substring(start, keys < 0 || keys > end ? end : keys);
     }
 }
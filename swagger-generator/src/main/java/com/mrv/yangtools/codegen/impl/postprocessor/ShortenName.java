@@ -6,6 +6,7 @@ import io.swagger.models.Model;
 import io.swagger.models.RefModel;
 import io.swagger.models.Swagger;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -23,8 +24,14 @@ public class ShortenName extends ReplaceDefinitionsProcessor {
 
     @Override
     protected Map<String, String> prepareForReplacement(Swagger swagger) {
+        return prepareForReplacement(swagger, Collections.emptyMap());
+    }
+
+    @Override
+    protected Map<String, String> prepareForReplacement(Swagger swagger, Map<String, String> pending) {
         Map<String, Model> newKeys = new HashMap<>();
         Map<String, String> result = swagger.getDefinitions().entrySet().stream()
+                .filter(e -> !pending.containsKey(e.getKey()))
                 .filter(e -> e.getKey().startsWith(namePrefix))
                 .map(e -> {
                     String newKey = e.getKey();
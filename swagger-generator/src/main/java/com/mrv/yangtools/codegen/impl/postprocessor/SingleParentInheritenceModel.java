@@ -9,6 +9,7 @@
  */
 package com.mrv.yangtools.codegen.impl.postprocessor;
 
+import com.mrv.yangtools.codegen.impl.ModelUtils;
 import io.swagger.models.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -16,20 +17,19 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
-import static com.mrv.yangtools.codegen.impl.ModelUtils.isAugmentation;
-import static com.mrv.yangtools.codegen.impl.postprocessor.SwaggerRefHelper.getReferences;
 
 /**
  * @author bartosz.michalik@amartus.com
  */
-public class SingleParentInheritenceModel implements Consumer<Swagger> {
+public class SingleParentInheritenceModel implements Consumer<Swagger>, ReferenceGraph.Maintaining {
     private static final Logger log = LoggerFactory.getLogger(SingleParentInheritenceModel.class);
     @Override
     public void accept(Swagger swagger) {
 
-        Worker worker = new Worker(buildHierarchy(swagger), swagger);
+        ReferenceGraph graph = ReferenceGraph.of(swagger);
+        Worker worker = new Worker(graph, swagger);
+        Map<String, Model> changed = new HashMap<>();
 
         swagger.getDefinitions().entrySet().stream()
                 .filter(e -> worker.getReferencing(e.getKey()).size() > 1)
@@ -63,65 +63,76 @@ public class SingleParentInheritenceModel implements Consumer<Swagger> {
 
                     return new AbstractMap.SimpleEntry<String, Model>(e.getKey(), model);
 
-        }).forEach(e -> swagger.addDefinition(e.getKey(), e.getValue()));
+        }).forEach(e -> {
+            swagger.addDefinition(e.getKey(), e.getValue());
+            changed.put(e.getKey(), e.getValue());
+        });
+
+        // hierarchy has to stay intact while the models are computed
+        changed.forEach(graph::definitionChanged);
 
 
     }
 
     private class Worker {
-        private final Map<String, TypeNode> hierarchy;
+        private final ReferenceGraph hierarchy;
         private final Swagger swagger;
+        // flattened hierarchy of each type, shared ancestors are computed once
+        private final Map<TypeNode, Set<TypeNode>> flattened = new HashMap<>();
+        private final Map<TypeNode, Boolean> augmentations = new HashMap<>();
+        private final Comparator<TypeNode> order = Comparator.<TypeNode, Boolean>comparing(this::isAugmentation)
+                .thenComparing(t -> t.type);
         private Set<String> toUnpack;
         private String parent;
 
-        private Worker(Map<String, TypeNode> hierarchy, Swagger swagger) {
+        private Worker(ReferenceGraph hierarchy, Swagger swagger) {
             this.hierarchy = hierarchy;
             this.swagger = swagger;
         }
 
         private Set<TypeNode> getReferencing(String type) {
-            return hierarchy.get(type).getReferencing();
+            return hierarchy.node(type).getReferencing();
         }
 
         private void compute(String type) {
 
-            TypeNode node = hierarchy.get(type);
+            TypeNode node = hierarchy.node(type);
 
-            Set<TypeNode> typesToUnpack = getAllInHierarchy(node).collect(Collectors.toSet());
+            Set<TypeNode> typesToUnpack = new LinkedHashSet<>(getAllInHierarchy(node));
             TypeNode parentType = findParent(typesToUnpack);
             typesToUnpack.remove(parentType);
 
-            toUnpack = typesToUnpack.stream().map(t -> t.type).collect(Collectors.toSet());
+            toUnpack = typesToUnpack.stream().map(t -> t.type).collect(Collectors.toCollection(LinkedHashSet::new));
             parent = parentType.type;
 
 
         }
 
         private TypeNode findParent(Set<TypeNode> typesToUnpack) {
-            return typesToUnpack.stream().reduce((a,b) -> a.getReferencedBy().size() > b.getReferencedBy().size() ? a : b).get();
+            return typesToUnpack.stream().reduce((a,b) -> a.getReferencedBy().size() >= b.getReferencedBy().size() ? a : b).get();
         }
 
-        Stream<TypeNode> getAllInHierarchy(TypeNode node) {
-            if(node.getReferencing().size() > 0) return Stream.concat(Stream.of(node), sorted(node.getReferencing()).flatMap(this::getAllInHierarchy));
-            return Stream.of(node);
+        /**
+         * @param node type
+         * @return type followed by hierarchies of its parents, regular parents before augmentations
+         */
+        Set<TypeNode> getAllInHierarchy(TypeNode node) {
+            Set<TypeNode> known = flattened.get(node);
+            if(known != null) return known;
+            // guard against cyclic compositions
+            flattened.put(node, Collections.singleton(node));
+
+            Set<TypeNode> all = new LinkedHashSet<>();
+            all.add(node);
+            node.getReferencing().stream().sorted(order)
+                    .forEach(r -> all.addAll(getAllInHierarchy(r)));
+            Set<TypeNode> result = Collections.unmodifiableSet(all);
+            flattened.put(node, result);
+            return result;
         }
 
-        private Stream<TypeNode> sorted(Set<TypeNode> referencing) {
-            TreeSet<TypeNode> sorted = new TreeSet<>((a, b) -> {
-                Model modelA = swagger.getDefinitions().get(a.type);
-                Model modelB = swagger.getDefinitions().get(b.type);
-                boolean aAugmentation = isAugmentation(modelA);
-                boolean bAugmentation = isAugmentation(modelB);
-
-                if(aAugmentation) {
-                    if(bAugmentation) return a.type.compareTo(b.type);
-                    return 1;
-                }
-                if(bAugmentation) return -1;
-                return a.type.compareTo(b.type);
-            });
-            sorted.addAll(referencing);
-            return sorted.stream();
+        private boolean isAugmentation(TypeNode node) {
+            return augmentations.computeIfAbsent(node, n -> ModelUtils.isAugmentation(swagger.getDefinitions().get(n.type)));
         }
 
         private Set<String> getToUnpack() {
@@ -133,18 +144,6 @@ public class SingleParentInheritenceModel implements Consumer<Swagger> {
         }
     }
 
-    private Map<String, TypeNode> buildHierarchy(Swagger swagger) {
-        TypesUsageTreeBuilder typesUsageTreeBuilder = new TypesUsageTreeBuilder();
-
-        swagger.getDefinitions().forEach((type, value) -> {
-            Stream<String> references = getReferences(type, value);
-            typesUsageTreeBuilder.referencing(type, references);
-        });
-
-        return typesUsageTreeBuilder.build();
-    }
-
-
     private void copyAttributes(ModelImpl target, ModelImpl source) {
         //TODO may require property copying and moving x- extensions down to properties
         if(source.getProperties() != null)
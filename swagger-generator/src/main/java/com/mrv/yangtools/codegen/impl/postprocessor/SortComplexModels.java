@@ -20,7 +20,7 @@ import java.util.function.Consumer;
  *
  * @author bartosz.michalik@amartus.com
  */
-public class SortComplexModels implements Consumer<Swagger> {
+public class SortComplexModels implements Consumer<Swagger>, ReferenceGraph.Maintaining {
     @Override
     public void accept(Swagger swagger) {
         swagger.getDefinitions().entrySet().stream().filter(e -> e.getValue() instanceof ComposedModel)
@@ -9,18 +9,20 @@
  */
 package com.mrv.yangtools.codegen.impl.postprocessor;
 
+import com.mrv.yangtools.codegen.impl.swagger.ArrayModelImpl;
 import io.swagger.models.*;
 import io.swagger.models.parameters.BodyParameter;
 import io.swagger.models.parameters.Parameter;
 import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.MapProperty;
 import io.swagger.models.properties.ObjectProperty;
 import io.swagger.models.properties.Property;
 import io.swagger.models.properties.RefProperty;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.Objects;
-import java.util.Optional;
+import java.util.*;
+import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -49,9 +51,11 @@ public class SwaggerRefHelper {
      * Get uses of of a set of properties in the model
      * @param type type name
      * @param model definition
-     * @return a stream with all other definitions refrerenced via properties
+     * @return a stream with all other definitions refrerenced via properties or array items
      */
     public static Stream<String> getUses(String type, Model model) {
+        Property items = getItems(model);
+        if(items != null) return toUses(items);
         if(model instanceof ModelImpl) {
             if(model.getProperties() == null) {
                 if( ((ModelImpl) model).getEnum() == null)
@@ -68,11 +72,23 @@ public class SwaggerRefHelper {
         return Stream.empty();
     }
 
+    /**
+     * @param model definition
+     * @return items of array model or null if model is not an array
+     */
+    public static Property getItems(Model model) {
+        if(model instanceof ArrayModelImpl) return ((ArrayModelImpl) model).getItems();
+        if(model instanceof ArrayModel) return ((ArrayModel) model).getItems();
+        return null;
+    }
+
     public static Stream<String> toUses(Property p) {
         if(p instanceof RefProperty) return Stream.of(((RefProperty)p).getSimpleRef());
         if(p instanceof ArrayProperty) return toUses(((ArrayProperty)p).getItems());
+        if(p instanceof MapProperty) return toUses(((MapProperty)p).getAdditionalProperties());
 
-        if(p instanceof ObjectProperty) {
+        // e.g. anydata has no properties
+        if(p instanceof ObjectProperty && ((ObjectProperty)p).getProperties() != null) {
             return ((ObjectProperty)p).getProperties().values().stream()
                     .flatMap(SwaggerRefHelper::toUses);
         }
@@ -80,6 +96,63 @@ public class SwaggerRefHelper {
         return Stream.empty();
     }
 
+    /**
+     * Get uses of body parameters and responses of the operation
+     * @param o operation
+     * @return a stream with all definitions referenced by operation payloads
+     */
+    public static Stream<String> getUses(Operation o) {
+        Stream<String> body = o.getParameters() == null ? Stream.empty() : o.getParameters().stream()
+                .filter(p -> p instanceof BodyParameter)
+                .flatMap(p -> fromModel(((BodyParameter) p).getSchema()));
+        Stream<String> responses = o.getResponses() == null ? Stream.empty() : o.getResponses().values().stream()
+                .filter(r -> r.getSchema() != null)
+                .flatMap(r -> toUses(r.getSchema()));
+        return Stream.concat(body, responses);
+    }
+
+    /**
+     * Get uses of parameters and responses shared at the top level of swagger
+     * @param swagger model
+     * @return a stream with all definitions referenced by shared payloads
+     */
+    public static Stream<String> getSharedUses(Swagger swagger) {
+        Stream<String> body = swagger.getParameters() == null ? Stream.empty() : swagger.getParameters().values().stream()
+                .filter(p -> p instanceof BodyParameter)
+                .flatMap(p -> fromModel(((BodyParameter) p).getSchema()));
+        Stream<String> responses = swagger.getResponses() == null ? Stream.empty() : swagger.getResponses().values().stream()
+                .filter(r -> r.getSchema() != null)
+                .flatMap(r -> toUses(r.getSchema()));
+        return Stream.concat(body, responses);
+    }
+
+    /**
+     * Get definitions reachable from roots via properties, array items and compositions
+     * @param roots definitions
+     * @param definitions all definitions
+     * @return roots and definitions reachable from them, unknown definitions are skipped
+     */
+    public static Set<String> getReachable(Stream<String> roots, Map<String, Model> definitions) {
+        Set<String> reachable = new HashSet<>();
+        Deque<String> toVisit = roots.collect(Collectors.toCollection(ArrayDeque::new));
+        while(!toVisit.isEmpty()) {
+            String type = toVisit.pop();
+            Model model = definitions.get(type);
+            if(model == null || !reachable.add(type)) continue;
+            getReferences(type, model).forEach(toVisit::push);
+            getUses(type, model).forEach(toVisit::push);
+        }
+        return reachable;
+    }
+
+    private static Stream<String> fromModel(Model m) {
+        if(m instanceof RefModel) return Stream.of(((RefModel) m).getSimpleRef());
+        if(getItems(m) != null) return toUses(getItems(m));
+        if(m instanceof ComposedModel) return ((ComposedModel) m).getAllOf().stream().flatMap(SwaggerRefHelper::fromModel);
+        if(m != null && m.getProperties() != null) return m.getProperties().values().stream().flatMap(SwaggerRefHelper::toUses);
+        return Stream.empty();
+    }
+
     public static Stream<String> getFromResponses(Operation o ) {
         return o.getResponses().entrySet().stream().map(e -> getFromResponse(o, e.getKey())).filter(Objects::nonNull);
     }
@@ -74,11 +74,28 @@ class TypeNode {
 
 
 
+    /**
+     * Type nodes used as attributes
+     * @return
+     */
+    public Set<TypeNode> getUsing() {
+        return using;
+    }
+
     public void removingType() {
         using.forEach(u -> u.usedBy.remove(this));
         referencing.forEach(r -> r.referencedBy.remove(this));
     }
 
+    /**
+     * Drop all relations from this type node to other types, e.g. when its definition changes
+     */
+    void clearOutgoing() {
+        removingType();
+        using.clear();
+        referencing.clear();
+    }
+
     @Override
     public String toString() {
         return type;
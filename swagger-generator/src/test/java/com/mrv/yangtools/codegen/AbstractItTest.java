@@ -19,8 +19,10 @@ import java.io.IOException;
 import java.io.StringWriter;
 import java.nio.file.Path;
 import java.util.Optional;
+import java.util.Set;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
 import static org.junit.Assert.*;
 import static org.junit.Assert.assertNotNull;
@@ -114,4 +116,15 @@ public abstract class AbstractItTest {
         assertFalse(parentId.getVendorExtensions().isEmpty());
         assertTrue(parentId.getVendorExtensions().containsKey("x-path"));
     }
+
+    /**
+     * @return references of the generated swagger to definitions it does not have
+     */
+    protected Set<String> danglingRefs() {
+        return new ObjectMapper().setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .valueToTree(swagger).findValuesAsText("$ref").stream()
+                .map(r -> r.startsWith("#/definitions/") ? r.substring("#/definitions/".length()) : r)
+                .filter(r -> !swagger.getDefinitions().containsKey(r))
+                .collect(Collectors.toSet());
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.mrv.yangtools.codegen.impl.path.rfc8040.PathHandlerBuilder;
+import com.mrv.yangtools.common.ContextHelper;
+import com.mrv.yangtools.common.SchemaBuilder;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class DocumentPerModuleTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void augmentingPathsWrittenToAugmentingModule() throws Exception {
+        SchemaContext ctx = ContextHelper.getFromDir(Paths.get(getClass().getResource("/example").toURI()), SchemaBuilder.defaultYangMatcher());
+        Path dir = folder.getRoot().toPath();
+
+        new SwaggerGenerator(ctx, ctx.getModules()).defaultConfig().format(SwaggerGenerator.Format.JSON)
+                .pathHandler(new PathHandlerBuilder().useModuleName())
+                .generate(dir);
+
+        for (String module : new String[] {"base", "extension-of-base", "extension-of-extension"}) {
+            List<String> paths = paths(dir.resolve(module + ".json"));
+            assertFalse(module, paths.isEmpty());
+            for (String path : paths) {
+                assertEquals(path, module, lastModule(path));
+            }
+        }
+    }
+
+    private static String lastModule(String path) {
+        Matcher segment = Pattern.compile("/([A-Za-z_][\\w.-]*):").matcher(path);
+        String module = null;
+        while (segment.find()) module = segment.group(1);
+        return module;
+    }
+
+    private static List<String> paths(Path document) throws Exception {
+        JsonNode paths = SwaggerGenerator.Format.JSON.mapper().readTree(document.toFile()).get("paths");
+        List<String> result = new ArrayList<>();
+        paths.fieldNames().forEachRemaining(result::add);
+        return result;
+    }
+}
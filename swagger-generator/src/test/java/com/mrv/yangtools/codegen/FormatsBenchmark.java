@@ -0,0 +1,79 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mrv.yangtools.codegen.impl.StreamingSwaggerWriter;
+import com.mrv.yangtools.common.ContextHelper;
+import io.swagger.models.Swagger;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Paths;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Simple benchmark of write time, size and read-back time of a generated swagger for each {@link SwaggerGenerator.Format}.
+ * Run manually, e.g. from IDE. Arguments: [yang directory] [iterations]
+ * @author bartosz.michalik@amartus.com
+ */
+public class FormatsBenchmark {
+
+    public static void main(String... args) throws Exception {
+        String dir = args.length > 0 ? args[0] : "../examples/build-standalone/src/main/resources";
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        SchemaContext ctx = ContextHelper.getFromDir(Paths.get(dir), p -> p.toString().endsWith(".yang"));
+        Swagger swagger = new SwaggerGenerator(ctx, ctx.getModules()).defaultConfig().generate();
+
+        System.out.printf("%-10s %12s %12s %12s%n", "format", "size [B]", "write [ms]", "read [ms]");
+        for(SwaggerGenerator.Format format : SwaggerGenerator.Format.values()) {
+            ObjectMapper mapper = format.mapper();
+            byte[] bytes = write(swagger, format, mapper);
+            for(int warmup = 0; warmup < 3; warmup++) {
+                write(swagger, format, mapper);
+                read(bytes, format, mapper);
+            }
+
+            long start = System.nanoTime();
+            for(int i = 0; i < iterations; i++) {
+                write(swagger, format, mapper);
+            }
+            long written = System.nanoTime();
+            for(int i = 0; i < iterations; i++) {
+                read(bytes, format, mapper);
+            }
+            long read = System.nanoTime();
+
+            System.out.printf("%-10s %12d %12.1f %12.1f%n", format, bytes.length,
+                    (written - start) / 1e6 / iterations, (read - written) / 1e6 / iterations);
+        }
+    }
+
+    private static byte[] write(Swagger swagger, SwaggerGenerator.Format format, ObjectMapper mapper) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        OutputStream out = format.isCompressed() ? new GZIPOutputStream(bytes) : bytes;
+        new StreamingSwaggerWriter(mapper, false).write(swagger, out);
+        return bytes.toByteArray();
+    }
+
+    private static JsonNode read(byte[] bytes, SwaggerGenerator.Format format, ObjectMapper mapper) throws IOException {
+        InputStream in = new ByteArrayInputStream(bytes);
+        try(InputStream input = format.isCompressed() ? new GZIPInputStream(in) : in) {
+            return mapper.readTree(input);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mrv.yangtools.codegen.impl.path.SegmentTagGenerator;
+import com.mrv.yangtools.common.ContextHelper;
+import com.mrv.yangtools.common.SchemaBuilder;
+import io.swagger.models.Swagger;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class ModuleCacheTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final ObjectMapper mapper = SwaggerGenerator.Format.YAML.mapper();
+    private SchemaContext ctx;
+    private Map<String, String> hashes;
+
+    @Before
+    public void setUp() throws Exception {
+        Path dir = Paths.get(getClass().getResource("/example").toURI());
+        ctx = ContextHelper.getFromDir(dir, SchemaBuilder.defaultYangMatcher());
+        hashes = new SchemaBuilder().add(dir).sourceHashes();
+    }
+
+    @Test
+    public void cachedSameAsGenerated() throws Exception {
+        String expected = generate(null, SwaggerGenerator.Strategy.optimizing);
+        Path cache = folder.getRoot().toPath();
+
+        assertEquals(expected, generate(new ModuleCache(cache, hashes), SwaggerGenerator.Strategy.optimizing));
+        assertEquals(ctx.getModules().size(), count(cache));
+        assertEquals(expected, generate(new ModuleCache(cache, hashes), SwaggerGenerator.Strategy.optimizing));
+    }
+
+    @Test
+    public void changedSourceGeneratedAgain() throws Exception {
+        String expected = generate(null, SwaggerGenerator.Strategy.unpacking);
+        Path cache = folder.getRoot().toPath();
+        generate(new ModuleCache(cache, hashes), SwaggerGenerator.Strategy.unpacking);
+        int stored = count(cache);
+
+        Map<String, String> changed = new HashMap<>(hashes);
+        changed.put("base", "changed");
+        assertEquals(expected, generate(new ModuleCache(cache, changed), SwaggerGenerator.Strategy.unpacking));
+        // all modules import or augment base
+        assertEquals(2 * stored, count(cache));
+    }
+
+    @Test
+    public void configurationIsPartOfKey() throws Exception {
+        Path cache = folder.getRoot().toPath();
+        generate(new ModuleCache(cache, hashes).configuration("a"), SwaggerGenerator.Strategy.unpacking);
+        int stored = count(cache);
+
+        generate(new ModuleCache(cache, hashes).configuration("b"), SwaggerGenerator.Strategy.unpacking);
+        assertEquals(2 * stored, count(cache));
+    }
+
+    @Test
+    public void generatorSettingsArePartOfKey() throws Exception {
+        Path cache = folder.getRoot().toPath();
+        generate(new ModuleCache(cache, hashes), SwaggerGenerator.Strategy.unpacking);
+        int stored = count(cache);
+
+        generate(new ModuleCache(cache, hashes), SwaggerGenerator.Strategy.unpacking,
+                g -> g.pathFilter(new PathFilter().exclude("/**/x")));
+        assertEquals(2 * stored, count(cache));
+
+        generate(new ModuleCache(cache, hashes), SwaggerGenerator.Strategy.unpacking,
+                g -> g.tagGenerator(new SegmentTagGenerator(2)));
+        assertEquals(3 * stored, count(cache));
+    }
+
+    @Test
+    public void moduleWithUnknownSourceNotCached() throws Exception {
+        String expected = generate(null, SwaggerGenerator.Strategy.unpacking);
+        Path cache = folder.getRoot().toPath();
+
+        Map<String, String> unknown = new HashMap<>(hashes);
+        unknown.remove("base");
+        assertEquals(expected, generate(new ModuleCache(cache, unknown), SwaggerGenerator.Strategy.unpacking));
+        // all modules import or augment base
+        assertEquals(0, count(cache));
+    }
+
+    @Test
+    public void augmentationsCachedSameAsGenerated() throws Exception {
+        Path dir = Paths.get(getClass().getResource("/bug_15").toURI());
+        ctx = ContextHelper.getFromDir(dir, SchemaBuilder.defaultYangMatcher());
+        hashes = new SchemaBuilder().add(dir).sourceHashes();
+        String expected = generate(null, SwaggerGenerator.Strategy.optimizing);
+        Path cache = folder.getRoot().toPath();
+
+        assertEquals(expected, generate(new ModuleCache(cache, hashes), SwaggerGenerator.Strategy.optimizing));
+        Map<String, String> changed = new HashMap<>(hashes);
+        changed.put("ext1-ext", "changed");
+        assertEquals(expected, generate(new ModuleCache(cache, changed), SwaggerGenerator.Strategy.optimizing));
+
+        // augmentations of the same node are named in the order of their nodes
+        Swagger swagger = new SwaggerGenerator(ctx, ctx.getModules(), SwaggerGenerator.Strategy.optimizing).defaultConfig().generate();
+        assertTrue(swagger.getDefinitions().get("ext1.ext.AttributesAugmentation1").getProperties().containsKey("foo"));
+        assertTrue(swagger.getDefinitions().get("ext1.ext.AttributesAugmentation2").getProperties().containsKey("foo2"));
+    }
+
+    @Test
+    public void onlyKnownTypesRead() throws Exception {
+        Path cache = folder.getRoot().toPath();
+        ObjectMapper smile = new ObjectMapper(new SmileFactory());
+        Map<String, Object> fragment = new LinkedHashMap<>();
+        fragment.put("@type", "Fragment");
+        fragment.put("definitions", Collections.singletonMap("@type", "java.util.TreeMap"));
+        smile.writeValue(cache.resolve("key.smile").toFile(), fragment);
+
+        assertNull(new ModuleCache(cache, hashes).load("key"));
+    }
+
+    private String generate(ModuleCache cache, SwaggerGenerator.Strategy strategy) throws Exception {
+        return generate(cache, strategy, g -> {});
+    }
+
+    private String generate(ModuleCache cache, SwaggerGenerator.Strategy strategy, Consumer<SwaggerGenerator> settings) throws Exception {
+        SwaggerGenerator generator = new SwaggerGenerator(ctx, ctx.getModules(), strategy).defaultConfig();
+        settings.accept(generator);
+        if(cache != null) generator.cache(cache);
+        return mapper.writeValueAsString(generator.generate());
+    }
+
+    private static int count(Path dir) {
+        File[] files = dir.toFile().listFiles((d, name) -> name.endsWith(".smile"));
+        return files == null ? 0 : files.length;
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen;
+
+import com.mrv.yangtools.codegen.impl.postprocessor.CollapseTypes;
+import com.mrv.yangtools.codegen.impl.postprocessor.DeduplicateDefinitions;
+import com.mrv.yangtools.codegen.impl.postprocessor.RemoveUnusedDefinitions;
+import com.mrv.yangtools.codegen.impl.swagger.ArrayModelImpl;
+import io.swagger.models.properties.RefProperty;
+import org.junit.Test;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static org.junit.Assert.*;
+
+/**
+ * References of the generated swagger are resolvable after definitions are replaced or removed
+ * @author bartosz.michalik@amartus.com
+ */
+public class ReplacedReferencesTest extends AbstractItTest {
+    private static final String[] fixtures = {"example", "bug_15", "bug_17", "aug-group-ex", "inheritence-with-augmentation",
+            "with-groupings.yang", "duplicated-names.yang"};
+
+    @Test
+    public void listItemsCollapsed() {
+        swaggerFor("shared-list-grouping.yang", g -> g.strategy(SwaggerGenerator.Strategy.unpacking).appendReplacement(new CollapseTypes()));
+
+        checkListItemsMerged();
+    }
+
+    @Test
+    public void listItemsDeduplicated() {
+        swaggerFor("shared-list-grouping.yang", g -> g.strategy(SwaggerGenerator.Strategy.unpacking).appendReplacement(new DeduplicateDefinitions()));
+
+        checkListItemsMerged();
+    }
+
+    @Test
+    public void fixturesCollapsed() {
+        for(Predicate<Path> fixture : fixtures()) {
+            swaggerFor(fixture, g -> g.strategy(SwaggerGenerator.Strategy.unpacking).appendReplacement(new CollapseTypes()));
+            assertFalse(swagger.getDefinitions().isEmpty());
+            assertEquals(Collections.emptySet(), danglingRefs());
+        }
+    }
+
+    @Test
+    public void fixturesDeduplicated() {
+        for(Predicate<Path> fixture : fixtures()) {
+            swaggerFor(fixture, g -> g.strategy(SwaggerGenerator.Strategy.unpacking).appendReplacement(new CollapseTypes()).appendReplacement(new DeduplicateDefinitions()));
+            assertFalse(swagger.getDefinitions().isEmpty());
+            assertEquals(Collections.emptySet(), danglingRefs());
+        }
+    }
+
+    @Test
+    public void fixturesPrunedOfUnused() {
+        for(Predicate<Path> fixture : fixtures()) {
+            swaggerFor(fixture, g -> g.strategy(SwaggerGenerator.Strategy.unpacking).appendPostProcessor(new RemoveUnusedDefinitions()));
+            assertFalse(swagger.getDefinitions().isEmpty());
+            assertEquals(Collections.emptySet(), danglingRefs());
+        }
+    }
+
+    private void checkListItemsMerged() {
+        assertEquals(Collections.emptySet(), danglingRefs());
+        String first = ((RefProperty) items("shared.list.grouping.top.First")).getSimpleRef();
+        String second = ((RefProperty) items("shared.list.grouping.top.Second")).getSimpleRef();
+        assertEquals(first, second);
+    }
+
+    private io.swagger.models.properties.Property items(String list) {
+        return ((ArrayModelImpl) swagger.getDefinitions().get(list)).getItems();
+    }
+
+    static Predicate<Path>[] fixtures() {
+        @SuppressWarnings("unchecked")
+        Predicate<Path>[] result = new Predicate[fixtures.length];
+        for(int i = 0; i < fixtures.length; i++) {
+            String name = fixtures[i];
+            result[i] = name.endsWith(".yang") ? p -> p.getFileName().toString().equals(name)
+                    : p -> p.getParent() != null && p.getParent().getFileName().toString().equals(name);
+        }
+        return result;
+    }
+}
@@ -64,6 +64,28 @@ public class SwaggerGeneratorTestIt extends AbstractItTest {
     }    
 
 
+    @org.junit.Test
+    public void testGenerateSimpleModuleWithExcludedPath() {
+        //when
+        swaggerFor("simplest.yang", g -> g.pathFilter(new PathFilter().exclude("/simple-root/children1/children2")));
+
+        //then
+        assertFalse(swagger.getPaths().isEmpty());
+        assertTrue(swagger.getPaths().keySet().stream().noneMatch(p -> p.contains("children2")));
+        assertThat(swagger.getDefinitions().keySet(), hasItem("simplest.simpleroot.children1.Children2"));
+    }
+
+    @org.junit.Test
+    public void testGenerateSimpleModuleWithIncludedPath() {
+        //when
+        swaggerFor("simplest.yang", g -> g.pathFilter(new PathFilter().include("/**/simplest:children2")));
+
+        //then
+        assertFalse(swagger.getPaths().isEmpty());
+        assertTrue(swagger.getPaths().keySet().stream().allMatch(p -> p.contains("children2")));
+    }
+
+
 
     @org.junit.Test
     public void testGenerateReadOnlyModule() {
@@ -11,20 +11,26 @@
 package com.mrv.yangtools.codegen;
 
 import com.mrv.yangtools.codegen.impl.path.odl.ODLPathHandlerBuilder;
+import com.mrv.yangtools.codegen.impl.postprocessor.CollapseTypes;
+import com.mrv.yangtools.codegen.impl.postprocessor.ReplaceDefinitionsProcessor;
 import com.mrv.yangtools.common.ContextHelper;
 import io.swagger.models.ComposedModel;
 import io.swagger.models.Model;
 import io.swagger.models.Path;
+import io.swagger.models.Swagger;
 import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.ObjectProperty;
 import io.swagger.models.properties.RefProperty;
 import org.junit.Test;
 import org.opendaylight.yangtools.yang.model.api.SchemaContext;
 import org.opendaylight.yangtools.yang.parser.spi.meta.ReactorException;
 
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
@@ -164,6 +170,45 @@ public class SwaggerGeneratorWithOdlPathHandlerTest extends AbstractItTest {
 
     }
 
+    @org.junit.Test
+    public void testGenerateAnydata() {
+        for(SwaggerGenerator.Strategy strategy : SwaggerGenerator.Strategy.values()) {
+            //when
+            swaggerFor("anydata.yang", generator -> generator.strategy(strategy)
+                    .pathHandler(new ODLPathHandlerBuilder().useModuleName())
+                    .appendPostProcessor(new CollapseTypes()));
+
+            //then
+            Model root = swagger.getDefinitions().get("anydata.Root");
+            assertNotNull(strategy.toString(), root);
+            assertThat(root.getProperties().get("blob"), instanceOf(ObjectProperty.class));
+            assertThat(swagger.getPaths().keySet(), hasItem("/config/anydata:root"));
+        }
+    }
+
+    @org.junit.Test
+    public void testReplacementAppendedAsPostProcessorAccepted() {
+        AtomicBoolean accepted = new AtomicBoolean();
+        //when
+        swaggerFor("simplest.yang", generator -> generator
+                .pathHandler(new ODLPathHandlerBuilder().useModuleName())
+                .appendPostProcessor(new ReplaceDefinitionsProcessor() {
+                    @Override
+                    public void accept(Swagger target) {
+                        accepted.set(true);
+                        super.accept(target);
+                    }
+
+                    @Override
+                    protected Map<String, String> prepareForReplacement(Swagger swagger) {
+                        return Collections.emptyMap();
+                    }
+                }));
+
+        //then
+        assertTrue(accepted.get());
+    }
+
     @org.junit.Test
     public void testGenerateEnum() throws Exception {
         SchemaContext ctx = ContextHelper.getFromClasspath(p -> p.getFileName().toString().equals("enum-module.yang"));
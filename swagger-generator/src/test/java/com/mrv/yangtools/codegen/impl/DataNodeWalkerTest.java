@@ -0,0 +1,87 @@
+package com.mrv.yangtools.codegen.impl;
+
+import org.junit.Test;
+import org.opendaylight.yangtools.yang.common.QName;
+import org.opendaylight.yangtools.yang.model.api.*;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class DataNodeWalkerTest {
+
+    @Test
+    public void preAndPostOrderWithInlinedChoice() {
+        ContainerSchemaNode b = container("b");
+        ContainerSchemaNode c = container("c");
+        ChoiceCaseNode _case = mock(ChoiceCaseNode.class);
+        when(_case.getChildNodes()).thenReturn(Collections.singletonList(b));
+        ChoiceSchemaNode choice = mock(ChoiceSchemaNode.class);
+        when(choice.getQName()).thenReturn(QName.create("urn:test", "ch"));
+        when(choice.getCases()).thenReturn(Collections.singleton(_case));
+        ContainerSchemaNode a = container("a", choice, c);
+
+        List<String> events = new ArrayList<>();
+        new DataNodeWalker(new Recorder(events, 0)).walk(Collections.singletonList(a), Integer.MAX_VALUE);
+
+        assertEquals(Arrays.asList("+a", "+ch", "+b", "-b", "-ch", "+c", "-c", "-a"), events);
+    }
+
+    @Test
+    public void depthLimit() {
+        ContainerSchemaNode a = container("a", container("b", container("c")));
+
+        List<String> events = new ArrayList<>();
+        new DataNodeWalker(new Recorder(events, 1)).walk(Collections.singletonList(a), 2);
+
+        assertEquals(Arrays.asList("+a", "+b", "-a"), events);
+    }
+
+    @Test
+    public void deepTree() {
+        ContainerSchemaNode node = container("leaf");
+        for(int i = 0; i < 10_000; i++) {
+            node = container("n" + i, node);
+        }
+
+        List<String> events = new ArrayList<>();
+        new DataNodeWalker(new Recorder(events, 0)).walk(Collections.singletonList(node), Integer.MAX_VALUE);
+
+        assertEquals(2 * 10_001, events.size());
+        assertEquals("+leaf", events.get(10_000));
+        assertEquals("-leaf", events.get(10_001));
+    }
+
+    private static ContainerSchemaNode container(String name, DataSchemaNode... children) {
+        ContainerSchemaNode node = mock(ContainerSchemaNode.class);
+        when(node.getQName()).thenReturn(QName.create("urn:test", name));
+        when(node.getChildNodes()).thenReturn(Arrays.asList(children));
+        return node;
+    }
+
+    private static class Recorder implements DataNodeWalker.Visitor {
+        private final List<String> events;
+        private final int stopAt;
+
+        private Recorder(List<String> events, int stopAt) {
+            this.events = events;
+            this.stopAt = stopAt;
+        }
+
+        @Override
+        public boolean enter(DataSchemaNode node, int depth) {
+            events.add("+" + node.getQName().getLocalName());
+            return depth > stopAt;
+        }
+
+        @Override
+        public void leave(DataSchemaNode node) {
+            events.add("-" + node.getQName().getLocalName());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.mrv.yangtools.codegen.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.swagger.models.*;
+import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class ParallelSwaggerWriterTest {
+
+    @Test
+    public void sameAsSequentialForYaml() throws IOException {
+        assertSameAsSequential(mapper(new ObjectMapper(new YAMLFactory())), swagger(300));
+    }
+
+    @Test
+    public void sameAsSequentialForJson() throws IOException {
+        assertSameAsSequential(mapper(new ObjectMapper()), swagger(300));
+    }
+
+    @Test
+    public void sameAsSequentialForSmallModel() throws IOException {
+        assertSameAsSequential(mapper(new ObjectMapper(new YAMLFactory())), swagger(1));
+        assertSameAsSequential(mapper(new ObjectMapper()), swagger(0));
+    }
+
+    @Test
+    public void sequentialForIndentedJson() throws IOException {
+        ObjectMapper mapper = mapper(new ObjectMapper());
+        mapper.enable(SerializationFeature.INDENT_OUTPUT);
+        assertSameAsSequential(mapper, swagger(100));
+    }
+
+    @Test
+    public void writtenPartsReleased() throws IOException {
+        Swagger swagger = swagger(100);
+        parallel(mapper(new ObjectMapper()), swagger, true);
+
+        assertTrue(swagger.getDefinitions().isEmpty());
+        assertTrue(swagger.getPaths().isEmpty());
+    }
+
+    @Test
+    public void pathsNotCopied() throws IOException {
+        Swagger swagger = new Swagger() {
+            @Override
+            public Map<String, Path> getPaths() {
+                throw new AssertionError("paths are sorted in a copy");
+            }
+        };
+        swagger.setPaths(swagger(300).getPaths());
+
+        assertTrue(parallel(mapper(new ObjectMapper()), swagger, false).contains("\"/data/type-299\""));
+    }
+
+    private void assertSameAsSequential(ObjectMapper mapper, Swagger swagger) throws IOException {
+        StringWriter expected = new StringWriter();
+        new StreamingSwaggerWriter(mapper, false).write(swagger, expected);
+
+        assertEquals(expected.toString(), parallel(mapper, swagger, false));
+    }
+
+    private String parallel(ObjectMapper mapper, Swagger swagger, boolean release) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new ParallelSwaggerWriter(mapper, release, 4).write(swagger, Channels.newChannel(out));
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private ObjectMapper mapper(ObjectMapper mapper) {
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        return mapper;
+    }
+
+    private Swagger swagger(int size) {
+        Swagger swagger = new Swagger()
+                .info(new Info().title("test API").description("\u0142\u00f3d\u017a description"))
+                .host("localhost").basePath("/restconf")
+                .tag(new Tag().name("tag"));
+        for(int i = 0; i < size; i++) {
+            String name = "type-" + i;
+            swagger.addDefinition(name, new ModelImpl()
+                    .description("long description of " + name + " which has to be wrapped by the yaml emitter at some point\n" +
+                            "  with indented second line and unicode \u017c\u00f3\u0142w")
+                    .property("name", new StringProperty().example("\"quoted\""))
+                    .property("children", new ArrayProperty(new RefProperty("type-" + (i + 1) % size))));
+            swagger.path("/data/" + name, new Path()
+                    .get(new Operation().tag("tag").description("get " + name)
+                            .response(200, new Response().description("ok").schema(new RefProperty(name))))
+                    .delete(new Operation().description("delete " + name)));
+        }
+        swagger.setVendorExtension("x-ext", "value");
+        return swagger;
+    }
+}
@@ -0,0 +1,128 @@
+package com.mrv.yangtools.codegen.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mrv.yangtools.codegen.impl.swagger.ArrayModelImpl;
+import io.swagger.models.*;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class ShardedSwaggerWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ObjectMapper mapper;
+    private Swagger swagger;
+
+    @Before
+    public void setUp() {
+        mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        swagger = new Swagger().info(new Info().title("test API"));
+        swagger.addDefinition("A", new ModelImpl().property("c", new RefProperty("C")));
+        swagger.addDefinition("B", new ModelImpl().property("name", new StringProperty()));
+        swagger.addDefinition("C", new ComposedModel().parent(new RefModel("B")).child(new ModelImpl()));
+        swagger.addDefinition("D", new ModelImpl().property("name", new StringProperty()));
+        ArrayModelImpl list = new ArrayModelImpl();
+        list.setItems(new RefProperty("LItem"));
+        swagger.addDefinition("L", list);
+        swagger.addDefinition("LItem", new ModelImpl().property("d", new RefProperty("D")));
+        swagger.path("/data/mod:a", get("a", "A"));
+        swagger.path("/data/mod:a/b", get("a", "B"));
+        swagger.path("/data/mod:d", get("d", "D"));
+        swagger.path("/data/mod:l", get("l", "L"));
+        swagger.path("/operations/mod:rpc", get(null, "B"));
+    }
+
+    @Test
+    public void shardsByTag() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        List<Path> written = new ShardedSwaggerWriter(mapper, "json", ShardedSwaggerWriter.Sharding.byTag()).write(swagger, dir);
+
+        assertEquals(5, written.size());
+        assertEquals(dir.resolve("index.json"), written.get(0));
+        for(Path shard : written.subList(1, written.size())) {
+            checkRefsResolved(mapper.readTree(shard.toFile()));
+        }
+
+        JsonNode a = mapper.readTree(dir.resolve("a.json").toFile());
+        assertEquals(2, a.get("paths").size());
+        assertEquals(names("A", "B", "C"), names(a.get("definitions")));
+
+        JsonNode d = mapper.readTree(dir.resolve("d.json").toFile());
+        assertEquals(names("D"), names(d.get("definitions")));
+
+        JsonNode l = mapper.readTree(dir.resolve("l.json").toFile());
+        assertEquals(names("D", "L", "LItem"), names(l.get("definitions")));
+
+        JsonNode index = mapper.readTree(written.get(0).toFile());
+        assertEquals(4, index.get("shards").size());
+        JsonNode first = index.at("/shards/0");
+        assertEquals("a", first.get("name").asText());
+        assertEquals("a.json", first.get("file").asText());
+        assertEquals(2, first.get("paths").asInt());
+        assertEquals("A", first.at("/definitions/0").asText());
+        assertEquals("B", first.at("/definitions/1").asText());
+        assertEquals("default", index.at("/shards/2/name").asText());
+    }
+
+    @Test
+    public void shardsByPrefix() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        List<Path> written = new ShardedSwaggerWriter(mapper, "json", ShardedSwaggerWriter.Sharding.of("prefix:2")).write(swagger, dir);
+        for(Path shard : written.subList(1, written.size())) {
+            checkRefsResolved(mapper.readTree(shard.toFile()));
+        }
+
+        JsonNode a = mapper.readTree(dir.resolve("data_mod_a.json").toFile());
+        assertEquals(2, a.get("paths").size());
+        JsonNode rpc = mapper.readTree(dir.resolve("operations_mod_rpc.json").toFile());
+        assertEquals(names("B"), names(rpc.get("definitions")));
+    }
+
+    /**
+     * Each shard is self-contained, all its references are resolved against its own definitions
+     * @param shard document
+     */
+    private static void checkRefsResolved(JsonNode shard) {
+        Set<String> definitions = shard.has("definitions") ? names(shard.get("definitions")) : new HashSet<>();
+        for(String ref : shard.findValuesAsText("$ref")) {
+            assertTrue(ref, definitions.contains(ref.substring("#/definitions/".length())));
+        }
+    }
+
+    private static io.swagger.models.Path get(String tag, String type) {
+        Operation operation = new Operation().response(200, new Response().description("ok").schema(new RefProperty(type)));
+        if(tag != null) operation.tag(tag);
+        return new io.swagger.models.Path().get(operation);
+    }
+
+    private static Set<String> names(String... names) {
+        Set<String> result = new HashSet<>();
+        for(String n : names) result.add(n);
+        return result;
+    }
+
+    private static Set<String> names(JsonNode node) {
+        Set<String> result = new HashSet<>();
+        node.fieldNames().forEachRemaining(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package com.mrv.yangtools.codegen.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import io.swagger.models.*;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class SplitSwaggerWriterTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private ObjectMapper mapper;
+    private Swagger swagger;
+    private Map<String, String> pathModules;
+
+    @Before
+    public void setUp() {
+        mapper = new ObjectMapper(new YAMLFactory());
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+        swagger = new Swagger().info(new Info().title("test API"))
+                .tag(new Tag().name("a")).tag(new Tag().name("b"));
+        swagger.addDefinition("mod-a.A", new ModelImpl().property("b", new RefProperty("mod-b.B")));
+        swagger.addDefinition("mod-b.B", new ModelImpl().property("name", new StringProperty()));
+        swagger.path("/data/mod-a:a", new io.swagger.models.Path().get(new Operation().tag("a")
+                .response(200, new Response().description("a").schema(new RefProperty("mod-a.A")))));
+        swagger.path("/data/mod-b:b", new io.swagger.models.Path().get(new Operation().tag("b")
+                .response(200, new Response().description("b").schema(new RefProperty("mod-b.B")))));
+
+        pathModules = new HashMap<>();
+        pathModules.put("/data/mod-a:a", "mod-a");
+        pathModules.put("/data/mod-b:b", "mod-b");
+    }
+
+    @Test
+    public void documentPerModule() throws IOException {
+        List<Path> written = new SplitSwaggerWriter(mapper, "yaml").write(swagger, pathModules, folder.getRoot().toPath());
+
+        assertEquals(3, written.size());
+        assertEquals(folder.getRoot().toPath().resolve("definitions.yaml"), written.get(0));
+
+        JsonNode shared = mapper.readTree(written.get(0).toFile());
+        assertEquals(0, shared.get("paths").size());
+        assertEquals("#/definitions/mod-b.B", shared.at("/definitions/mod-a.A/properties/b/$ref").asText());
+
+        JsonNode moduleA = mapper.readTree(folder.getRoot().toPath().resolve("mod-a.yaml").toFile());
+        assertEquals(1, moduleA.get("paths").size());
+        assertNull(moduleA.get("definitions"));
+        assertEquals("definitions.yaml#/definitions/mod-a.A",
+                moduleA.at("/paths/~1data~1mod-a:a/get/responses/200/schema/$ref").asText());
+        assertEquals(1, moduleA.get("tags").size());
+        assertEquals("a", moduleA.at("/tags/0/name").asText());
+    }
+
+    @Test
+    public void unchangedDocumentsNotRewritten() throws IOException {
+        Path dir = folder.getRoot().toPath();
+        List<Path> written = new SplitSwaggerWriter(mapper, "yaml").write(swagger, pathModules, dir);
+        FileTime past = FileTime.fromMillis(0);
+        for(Path p : written) Files.setLastModifiedTime(p, past);
+
+        swagger.getPaths().get("/data/mod-a:a").getGet().description("changed");
+        new SplitSwaggerWriter(mapper, "yaml").write(swagger, pathModules, dir);
+
+        List<String> changed = written.stream()
+                .filter(p -> {
+                    try {
+                        return !Files.getLastModifiedTime(p).equals(past);
+                    } catch (IOException e) {
+                        throw new IllegalStateException(e);
+                    }
+                })
+                .map(p -> p.getFileName().toString())
+                .collect(Collectors.toList());
+        assertEquals(1, changed.size());
+        assertEquals("mod-a.yaml", changed.get(0));
+    }
+}
@@ -0,0 +1,116 @@
+package com.mrv.yangtools.codegen.impl;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
+import com.mrv.yangtools.codegen.SwaggerGenerator;
+import io.swagger.models.*;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.LinkedHashMap;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class StreamingSwaggerWriterTest {
+
+    @Test
+    public void sameAsMapperForYaml() throws IOException {
+        ObjectMapper mapper = new ObjectMapper(new YAMLFactory());
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        assertSameAsMapper(mapper);
+    }
+
+    @Test
+    public void sameAsMapperForJson() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        assertSameAsMapper(mapper);
+    }
+
+    @Test
+    public void writtenPartsReleased() throws IOException {
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+        Swagger swagger = swagger();
+        String expected = write(mapper, swagger, false);
+
+        String released = write(mapper, swagger, true);
+
+        assertEquals(expected, released);
+        assertTrue(swagger.getDefinitions().isEmpty());
+        assertTrue(swagger.getPaths().isEmpty());
+    }
+
+    @Test
+    public void binaryFormatsReadBack() throws IOException {
+        ObjectMapper json = SwaggerGenerator.Format.JSON.mapper();
+        for(SwaggerGenerator.Format format : new SwaggerGenerator.Format[] {SwaggerGenerator.Format.SMILE, SwaggerGenerator.Format.CBOR}) {
+            ObjectMapper mapper = format.mapper();
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            new StreamingSwaggerWriter(mapper, false).write(swagger(), out);
+
+            assertEquals(format.toString(), json.readTree(write(json, swagger(), false)),
+                    mapper.readTree(out.toByteArray()));
+        }
+    }
+
+    @Test
+    public void compressedSameAsPlain() throws IOException {
+        ObjectMapper mapper = SwaggerGenerator.Format.GZIP_YAML.mapper();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try(GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            new StreamingSwaggerWriter(mapper, false).write(swagger(), gzip);
+        }
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+            byte[] buffer = new byte[4096];
+            for(int read; (read = in.read(buffer)) > 0; ) plain.write(buffer, 0, read);
+        }
+        assertEquals(write(mapper, swagger(), false), plain.toString("UTF-8"));
+    }
+
+    private void assertSameAsMapper(ObjectMapper mapper) throws IOException {
+        Swagger swagger = swagger();
+        String streamed = write(mapper, swagger, false);
+
+        swagger.setDefinitions(new TreeMap<>(swagger.getDefinitions()));
+        assertEquals(mapper.writeValueAsString(swagger), streamed);
+        assertEquals(2, swagger.getPaths().size());
+    }
+
+    private String write(ObjectMapper mapper, Swagger swagger, boolean release) throws IOException {
+        StringWriter out = new StringWriter();
+        new StreamingSwaggerWriter(mapper, release).write(swagger, out);
+        return out.toString();
+    }
+
+    private Swagger swagger() {
+        Swagger swagger = new Swagger()
+                .info(new Info().title("test API").description("multi line\n description"))
+                .host("localhost").basePath("/restconf")
+                .consumes("application/json").produces("application/json")
+                .tag(new Tag().name("tag"));
+        swagger.setPaths(new LinkedHashMap<>());
+        swagger.path("/z", new Path().get(new Operation().description("z").tag("tag")
+                .response(200, new Response().description("ok").schema(new RefProperty("b")))));
+        swagger.path("/a", new Path().delete(new Operation().description("a")));
+        swagger.setDefinitions(new LinkedHashMap<>());
+        swagger.addDefinition("b", new ModelImpl().property("name", new StringProperty()));
+        swagger.addDefinition("a", new ModelImpl().description("a"));
+        swagger.setVendorExtension("x-ext", "value");
+        return swagger;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.codegen.impl.path;
+
+import com.mrv.yangtools.codegen.PathSegment;
+import com.mrv.yangtools.codegen.TagGenerator;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Simple microbenchmark comparing tags computed for each operation with tags memoized in {@link PathSegment}.
+ * Run manually, e.g. from IDE. Arguments: [depth] [operations per path] [iterations]
+ * @author bartosz.michalik@amartus.com
+ */
+public class TagsBenchmark {
+
+    private static final TagGenerator generator = new SegmentTagGenerator();
+
+    public static void main(String... args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int operations = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int iterations = args.length > 2 ? Integer.parseInt(args[2]) : 2_000;
+
+        for(int warmup = 0; warmup < 3; warmup++) {
+            run(depth, operations, iterations, false);
+            run(depth, operations, iterations, true);
+        }
+
+        long uncached = run(depth, operations, iterations, false);
+        long cached = run(depth, operations, iterations, true);
+
+        System.out.printf("depth=%d operations=%d iterations=%d%n", depth, operations, iterations);
+        System.out.printf("per operation: %d ms%n", uncached / 1_000_000);
+        System.out.printf("per segment:   %d ms%n", cached / 1_000_000);
+    }
+
+    private static long run(int depth, int operations, int iterations, boolean cached) {
+        long blackhole = 0;
+        long start = System.nanoTime();
+        for(int i = 0; i < iterations; i++) {
+            PathSegment segment = new PathSegment(mock(SchemaContext.class)).withModule("module");
+            for(int d = 0; d < depth; d++) {
+                segment = new PathSegment(segment).withName("segment-" + d);
+                for(int o = 0; o < operations; o++) {
+                    List<String> tags = cached ? segment.tags(TagsBenchmark::tags) : tags(segment);
+                    blackhole += tags.size();
+                }
+            }
+        }
+        long time = System.nanoTime() - start;
+        if(blackhole == 0) throw new IllegalStateException();
+        return time;
+    }
+
+    private static List<String> tags(PathSegment segment) {
+        List<String> tags = new ArrayList<>(generator.tags(segment).stream().collect(Collectors.toSet()));
+        Collections.sort(tags);
+        tags.add(segment.stream().map(PathSegment::getModuleName).filter(m -> m != null).findFirst().orElse("module"));
+        return tags;
+    }
+}
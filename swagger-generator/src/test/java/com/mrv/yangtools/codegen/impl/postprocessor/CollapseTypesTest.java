@@ -0,0 +1,109 @@
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import io.swagger.models.ComposedModel;
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.RefModel;
+import io.swagger.models.Swagger;
+import io.swagger.models.properties.MapProperty;
+import io.swagger.models.properties.ObjectProperty;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class CollapseTypesTest {
+    private Swagger swagger;
+
+    @Before
+    public void setupSwagger() {
+        swagger = new Swagger();
+        swagger.setPaths(new HashMap<>());
+        // "Aa" and "BB" have the same String.hashCode
+        swagger.addDefinition("Aa", leaf("a"));
+        swagger.addDefinition("BB", leaf("b"));
+        swagger.addDefinition("C", leaf("c"));
+    }
+
+    @Test
+    public void hashCollisionNotMerged() {
+        swagger.addDefinition("x", composed(ref("Aa"), ref("C")));
+        swagger.addDefinition("y", composed(ref("BB"), ref("C")));
+
+        Map<String, String> replacements = new CollapseTypes().prepareForReplacement(swagger);
+
+        assertFalse(replacements.containsKey("x"));
+        assertFalse(replacements.containsKey("y"));
+    }
+
+    @Test
+    public void sameReferencesInAnyOrderMerged() {
+        swagger.addDefinition("x", composed(ref("Aa"), ref("C")));
+        swagger.addDefinition("yy", composed(ref("C"), ref("Aa")));
+
+        assertEquals("x", new CollapseTypes().prepareForReplacement(swagger).get("yy"));
+    }
+
+    @Test
+    public void modelsAndMixedCompositionsMerged() {
+        swagger.addDefinition("leaf-copy", leaf("a"));
+        swagger.addDefinition("x", composed(ref("C"), leaf("d")));
+        swagger.addDefinition("yy", composed(leaf("d"), ref("C")));
+        swagger.addDefinition("zz", composed(ref("C"), leaf("e")));
+
+        Map<String, String> replacements = new CollapseTypes().prepareForReplacement(swagger);
+
+        assertEquals("Aa", replacements.get("leaf-copy"));
+        assertEquals("x", replacements.get("yy"));
+        assertFalse(replacements.containsKey("zz"));
+    }
+
+    @Test
+    public void compositionNotGivenSamePartTwice() {
+        swagger.addDefinition("Ab", leaf("a"));
+        swagger.addDefinition("child", composed(ref("Aa"), ref("Ab")));
+
+        assertTrue(new CollapseTypes().prepareForReplacement(swagger).isEmpty());
+    }
+
+    @Test
+    public void anydataAndMapPropertiesIndexed() {
+        swagger.addDefinition("x", new ModelImpl().property("blob", new ObjectProperty())
+                .property("map", new MapProperty(new RefProperty("#/definitions/Aa"))));
+        swagger.addDefinition("yy", new ModelImpl().property("blob", new ObjectProperty())
+                .property("map", new MapProperty(new RefProperty("#/definitions/Aa"))));
+        swagger.addDefinition("Ab", leaf("a"));
+
+        CollapseTypes collapse = new CollapseTypes();
+        collapse.accept(swagger);
+
+        assertEquals(Arrays.asList("Aa", "BB", "C", "x"), new ArrayList<>(new java.util.TreeSet<>(swagger.getDefinitions().keySet())));
+        MapProperty map = (MapProperty) swagger.getDefinitions().get("x").getProperties().get("map");
+        assertEquals("Aa", ((RefProperty) map.getAdditionalProperties()).getSimpleRef());
+    }
+
+    private static ModelImpl leaf(String property) {
+        return new ModelImpl().property(property, new StringProperty())
+                .property("ref", new RefProperty("#/definitions/C"));
+    }
+
+    private static RefModel ref(String type) {
+        return new RefModel("#/definitions/" + type);
+    }
+
+    private static ComposedModel composed(Model... parts) {
+        ComposedModel model = new ComposedModel();
+        model.setAllOf(new ArrayList<>(Arrays.asList(parts)));
+        return model;
+    }
+}
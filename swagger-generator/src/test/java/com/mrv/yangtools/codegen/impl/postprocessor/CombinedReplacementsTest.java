@@ -0,0 +1,95 @@
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import io.swagger.models.ComposedModel;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.RefModel;
+import io.swagger.models.Swagger;
+import io.swagger.models.properties.ArrayProperty;
+import io.swagger.models.properties.ObjectProperty;
+import io.swagger.models.properties.RefProperty;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class CombinedReplacementsTest {
+
+    @Test
+    public void chainsResolvedToFinalTarget() {
+        Map<String, String> replacements = new HashMap<>();
+        replacements.put("a", "b");
+        replacements.put("b", "c");
+
+        Map<String, String> resolved = ReplaceDefinitionsProcessor.resolve(replacements);
+
+        assertEquals("c", resolved.get("a"));
+        assertEquals("c", resolved.get("b"));
+    }
+
+    @Test
+    public void cycleBrokenAtSmallestName() {
+        Map<String, String> replacements = new HashMap<>();
+        replacements.put("a", "b");
+        replacements.put("b", "a");
+        replacements.put("c", "b");
+
+        Map<String, String> resolved = ReplaceDefinitionsProcessor.resolve(replacements);
+
+        assertFalse(resolved.containsKey("a"));
+        assertEquals("a", resolved.get("b"));
+        assertEquals("a", resolved.get("c"));
+    }
+
+    @Test
+    public void nestedReferencesRewrittenOnce() {
+        Swagger swagger = new Swagger();
+        swagger.setPaths(new HashMap<>());
+        swagger.addDefinition("Parent", new ModelImpl().property("name", new RefProperty("#/definitions/Name")));
+        swagger.addDefinition("Name", new ModelImpl().type("string"));
+        swagger.addDefinition("y", composed("Parent"));
+        swagger.addDefinition("x", composed("y"));
+
+        ObjectProperty nested = new ObjectProperty(Collections.singletonMap("inner", new RefProperty("#/definitions/x")));
+        ArrayProperty list = new ArrayProperty(new RefProperty("#/definitions/y"));
+        swagger.addDefinition("user", new ModelImpl().property("nested", nested).property("list", list));
+
+        new CombinedReplacements(Arrays.asList(new ReplaceEmptyWithParent(), new CollapseTypes())).accept(swagger);
+
+        assertFalse(swagger.getDefinitions().containsKey("x"));
+        assertFalse(swagger.getDefinitions().containsKey("y"));
+        assertEquals("Parent", ((RefProperty) nested.getProperties().get("inner")).getSimpleRef());
+        assertEquals("Parent", ((RefProperty) list.getItems()).getSimpleRef());
+    }
+
+    @Test
+    public void analysesCombinedInOrder() {
+        Swagger swagger = new Swagger();
+        swagger.setPaths(new HashMap<>());
+        swagger.addDefinition("Name", new ModelImpl().type("string"));
+        swagger.addDefinition("Parent", new ModelImpl().property("name", new RefProperty("#/definitions/Name")));
+        swagger.addDefinition("ParentCopy", new ModelImpl().property("name", new RefProperty("#/definitions/Name")));
+        swagger.addDefinition("empty", composed("ParentCopy"));
+        swagger.addDefinition("user", new ModelImpl().property("ref", new RefProperty("#/definitions/empty")));
+
+        new CombinedReplacements(Arrays.asList(new ReplaceEmptyWithParent(), new CollapseTypes(), new DeduplicateDefinitions()))
+                .accept(swagger);
+
+        assertEquals(new HashSet<>(Arrays.asList("Name", "Parent", "user")), swagger.getDefinitions().keySet());
+        assertEquals("Parent", ((RefProperty) swagger.getDefinitions().get("user").getProperties().get("ref")).getSimpleRef());
+    }
+
+    private static ComposedModel composed(String parent) {
+        ComposedModel model = new ComposedModel();
+        model.setAllOf(new ArrayList<>(Collections.singletonList(new RefModel("#/definitions/" + parent))));
+        return model;
+    }
+}
@@ -0,0 +1,82 @@
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Swagger;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class DeduplicateDefinitionsTest {
+    private Swagger swagger;
+
+    @Before
+    public void setupSwagger() {
+        swagger = new Swagger();
+        swagger.setPaths(new HashMap<>());
+        swagger.addDefinition("StateChild", leaf("q").name("state"));
+        swagger.addDefinition("ConfigChild", leaf("q").name("config"));
+        swagger.addDefinition("StateItem", leaf("p").property("child", new RefProperty("#/definitions/StateChild")));
+        swagger.addDefinition("ConfigItem", leaf("p").property("child", new RefProperty("#/definitions/ConfigChild")));
+    }
+
+    @Test
+    public void clonedHierarchyMerged() {
+        Map<String, String> replacements = new DeduplicateDefinitions().prepareForReplacement(swagger);
+
+        assertEquals("StateChild", replacements.get("ConfigChild"));
+        assertEquals("StateItem", replacements.get("ConfigItem"));
+        assertEquals(2, replacements.size());
+    }
+
+    @Test
+    public void clonedHierarchiesMergedInOnePass() {
+        swagger.addDefinition("Ch", leaf("q"));
+        swagger.addDefinition("StateHolder", new ModelImpl().property("item", new RefProperty("#/definitions/StateItem")));
+        swagger.addDefinition("ConfigHolder", new ModelImpl().property("item", new RefProperty("#/definitions/ConfigItem")));
+
+        Map<String, String> replacements = new DeduplicateDefinitions().prepareForReplacement(swagger);
+
+        // representative of the children is the shortest name even if it is not the first one compared
+        assertEquals("Ch", replacements.get("StateChild"));
+        assertEquals("Ch", replacements.get("ConfigChild"));
+        assertEquals("StateItem", replacements.get("ConfigItem"));
+        assertEquals("StateHolder", replacements.get("ConfigHolder"));
+        assertEquals(4, replacements.size());
+    }
+
+    @Test
+    public void vendorExtensionsDistinguish() {
+        StringProperty ranged = new StringProperty();
+        ranged.setVendorExtension("x-range", "1..10");
+        swagger.addDefinition("RangedChild", new ModelImpl().property("q", ranged));
+
+        Map<String, String> replacements = new DeduplicateDefinitions().prepareForReplacement(swagger);
+
+        assertFalse(replacements.containsKey("RangedChild"));
+    }
+
+    @Test
+    public void referencesRewritten() {
+        swagger.addDefinition("Holder", new ModelImpl().property("item", new RefProperty("#/definitions/ConfigItem")));
+
+        new DeduplicateDefinitions().accept(swagger);
+
+        assertFalse(swagger.getDefinitions().containsKey("ConfigItem"));
+        assertFalse(swagger.getDefinitions().containsKey("ConfigChild"));
+        RefProperty item = (RefProperty) swagger.getDefinitions().get("Holder").getProperties().get("item");
+        assertEquals("StateItem", item.getSimpleRef());
+    }
+
+    private static ModelImpl leaf(String property) {
+        return new ModelImpl().property(property, new StringProperty());
+    }
+}
@@ -0,0 +1,59 @@
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.RefResponse;
+import io.swagger.models.parameters.PathParameter;
+import io.swagger.models.parameters.RefParameter;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class ExtractSharedDefinitionsTest extends AbstractWithSwagger {
+
+    @Test
+    public void sharedResponses() {
+        new ExtractSharedDefinitions().accept(swagger);
+
+        assertEquals(2, swagger.getResponses().size());
+        assertEquals("Object created", swagger.getResponses().get("ObjectCreated").getDescription());
+        assertEquals("Object already exists", swagger.getResponses().get("ObjectAlreadyExists").getDescription());
+
+        Operation post = swagger.getPaths().get("/c").getPost();
+        assertTrue(post.getResponses().get("201") instanceof RefResponse);
+        assertEquals("#/responses/ObjectCreated", ((RefResponse) post.getResponses().get("201")).get$ref());
+        assertFalse(swagger.getPaths().get("/c").getGet().getResponses().get("200") instanceof RefResponse);
+    }
+
+    @Test
+    public void sharedParameters() {
+        swagger.getPaths().get("/c").getGet().parameter(new PathParameter().name("id").description("Id of c"));
+        swagger.getPaths().get("/c").getPost().parameter(new PathParameter().name("id").description("Id of c"));
+        swagger.getPaths().get("/a").getGet().parameter(new PathParameter().name("id").description("Id of a"));
+
+        new ExtractSharedDefinitions().accept(swagger);
+
+        assertEquals(1, swagger.getParameters().size());
+        assertEquals("Id of c", swagger.getParameters().get("id").getDescription());
+        assertTrue(swagger.getPaths().get("/c").getGet().getParameters().get(0) instanceof RefParameter);
+        assertTrue(swagger.getPaths().get("/a").getGet().getParameters().get(0) instanceof PathParameter);
+    }
+
+    @Test
+    public void nothingToShare() {
+        Map<String, Path> paths = swagger.getPaths();
+        paths.remove("/c");
+        paths.remove("/b/propE/propF");
+        swagger.setPaths(paths);
+
+        new ExtractSharedDefinitions().accept(swagger);
+
+        assertNull(swagger.getResponses());
+        assertNull(swagger.getParameters());
+    }
+}
@@ -0,0 +1,51 @@
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class MultiPatternReplacerTest {
+
+    @Test
+    public void allKeysReplacedInSinglePass() {
+        Map<String, String> replacements = new HashMap<>();
+        replacements.put("mod.Alpha", "mod.A");
+        replacements.put("mod.Beta", "mod.Alpha");
+
+        String result = new MultiPatternReplacer(replacements).replace("creates mod.Alpha from mod.Beta and mod.Alpha");
+
+        assertEquals("creates mod.A from mod.Alpha and mod.A", result);
+    }
+
+    @Test
+    public void longestKeyWins() {
+        Map<String, String> replacements = new HashMap<>();
+        replacements.put("he", "1");
+        replacements.put("she", "2");
+        replacements.put("hers", "3");
+        replacements.put("mod.Type", "x");
+        replacements.put("mod.TypeName", "y");
+
+        MultiPatternReplacer replacer = new MultiPatternReplacer(replacements);
+
+        assertEquals("u2rs", replacer.replace("ushers"));
+        assertEquals("y and x", replacer.replace("mod.TypeName and mod.Type"));
+    }
+
+    @Test
+    public void untouchedWithoutMatch() {
+        Map<String, String> replacements = new HashMap<>();
+        replacements.put("mod.Type", "x");
+        MultiPatternReplacer replacer = new MultiPatternReplacer(replacements);
+
+        String text = "returns mod.Other";
+        assertSame(text, replacer.replace(text));
+        assertNull(replacer.replace(null));
+    }
+}
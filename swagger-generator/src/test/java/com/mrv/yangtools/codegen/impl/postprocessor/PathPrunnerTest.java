@@ -5,6 +5,9 @@ import org.hamcrest.core.StringStartsWith;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+
 import static org.hamcrest.CoreMatchers.*;
 import static org.hamcrest.core.IsNot.not;
 import static org.junit.Assert.assertEquals;
@@ -67,5 +70,11 @@ public class PathPrunnerTest extends AbstractWithSwagger {
         assertEquals(orgDefCnt, swagger.getDefinitions().size());
     }
 
-
-}
\ No newline at end of file
+    @Test
+    public void pruneAllButParent1ExceptExcluded() {
+        new PathPrunner("/c")
+                .withType("Parent1")
+                .accept(swagger);
+        assertEquals(Arrays.asList("/a", "/b", "/c", "/c/propD"), new ArrayList<>(swagger.getPaths().keySet()));
+    }
+}
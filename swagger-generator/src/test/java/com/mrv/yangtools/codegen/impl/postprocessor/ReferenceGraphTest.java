@@ -0,0 +1,64 @@
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class ReferenceGraphTest extends AbstractWithSwagger {
+
+    @Test
+    public void relations() {
+        ReferenceGraph graph = ReferenceGraph.of(swagger);
+
+        assertEquals(new HashSet<>(Arrays.asList("Parent1", "Parent2")), graph.references("b"));
+        assertEquals(new HashSet<>(Arrays.asList("e", "Parent2")), graph.uses("b"));
+        assertEquals(new HashSet<>(Arrays.asList("b", "c", "e")), graph.referencedBy("Parent2"));
+        assertEquals(new HashSet<>(Arrays.asList("b", "/b/propE")), graph.usedBy("e"));
+        assertEquals(new HashSet<>(Arrays.asList("f", "a", "Parent1")), graph.hierarchy("f").collect(Collectors.toSet()));
+        assertEquals(swagger.getPaths().keySet(), graph.roots());
+    }
+
+    @Test
+    public void incrementalUpdates() {
+        ReferenceGraph graph = ReferenceGraph.of(swagger);
+
+        graph.pathRemoved("/b/propE");
+        assertEquals(Collections.singleton("b"), graph.usedBy("e"));
+
+        graph.replaced(Collections.singletonMap("d", "a"), swagger);
+        assertFalse(graph.contains("d"));
+        assertTrue(graph.usedBy("a").contains("c"));
+
+        graph.definitionRemoved("f");
+        assertFalse(graph.referencedBy("a").contains("f"));
+        // still used by e
+        assertTrue(graph.contains("f"));
+    }
+
+    @Test
+    public void sharedWhenAttached() {
+        assertNotSame(ReferenceGraph.of(swagger), ReferenceGraph.of(swagger));
+
+        ReferenceGraph.attach(swagger);
+        try {
+            ReferenceGraph graph = ReferenceGraph.of(swagger);
+            assertSame(graph, ReferenceGraph.of(swagger));
+
+            ReferenceGraph.guard(new RemoveUnusedDefinitions()).accept(swagger);
+            assertSame(graph, ReferenceGraph.of(swagger));
+
+            ReferenceGraph.guard(s -> s.getDefinitions().remove("f")).accept(swagger);
+            assertNotSame(graph, ReferenceGraph.of(swagger));
+        } finally {
+            ReferenceGraph.detach(swagger);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package com.mrv.yangtools.codegen.impl.postprocessor;
 
+import com.mrv.yangtools.codegen.impl.swagger.ArrayModelImpl;
 import io.swagger.models.Path;
+import io.swagger.models.properties.RefProperty;
 import org.junit.Test;
 
+import java.util.Collections;
 import java.util.Map;
 
 import static com.mrv.yangtools.codegen.impl.postprocessor.AbstractWithSwagger.Type.R;
@@ -71,4 +74,30 @@ public class RemoveUnusedDefinitionsTest extends AbstractWithSwagger {
 
         assertEquals(initial - 2, swagger.getDefinitions().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void removingUnusedCycle() {
+        swagger.addDefinition("g", m(Collections.emptySet(), Collections.singletonMap("propH", "h")));
+        swagger.addDefinition("h", m(Collections.emptySet(), Collections.singletonMap("propG", "g")));
+        int initial = swagger.getDefinitions().size();
+
+        new RemoveUnusedDefinitions().accept(swagger);
+
+        assertEquals(initial - 2, swagger.getDefinitions().size());
+        assertFalse(swagger.getDefinitions().containsKey("g"));
+    }
+
+    @Test
+    public void arrayItemsKept() {
+        ArrayModelImpl list = new ArrayModelImpl();
+        list.setItems(new RefProperty("#/definitions/listItem"));
+        swagger.addDefinition("list", list);
+        swagger.addDefinition("listItem", m(Collections.emptySet(), Collections.singletonMap("propD", "d")));
+        swagger.path("/c/list", p("list", R));
+        int initial = swagger.getDefinitions().size();
+
+        new RemoveUnusedDefinitions().accept(swagger);
+
+        assertEquals(initial, swagger.getDefinitions().size());
+    }
+}
@@ -1,5 +1,12 @@
 package com.mrv.yangtools.codegen.impl.postprocessor;
 
+import io.swagger.models.Model;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.Operation;
+import io.swagger.models.Path;
+import io.swagger.models.Response;
+import io.swagger.models.properties.RefProperty;
+import io.swagger.models.properties.StringProperty;
 import org.junit.Test;
 
 import static org.junit.Assert.*;
@@ -21,4 +28,32 @@ public class Rfc4080PayloadWrapperTest extends AbstractWithSwagger {
 
         assertEquals(numberOfWrappers, swagger.getPaths().size());
     }
+
+    @Test
+    public void propertyFromLastSegment() {
+        Rfc4080PayloadWrapper wrapper = new Rfc4080PayloadWrapper();
+
+        assertEquals("mod:list", wrapper.toProperty("/data/mod:container/mod:list={id}"));
+        assertEquals("container", wrapper.toProperty("/data/container/"));
+    }
+
+    @Test
+    public void outputSharedByOperations() {
+        swagger.addDefinition("out", new ModelImpl().property("result", new StringProperty()));
+        swagger.path("/operations/mod:first", rpc("out"));
+        swagger.path("/operations/mod:second", rpc("out"));
+
+        new Rfc4080PayloadWrapper().accept(swagger);
+
+        assertFalse(swagger.getDefinitions().containsKey("out"));
+        Model wrapper = swagger.getDefinitions().get("outWrapper_post");
+        assertTrue(wrapper.getProperties().containsKey("mod:result"));
+        assertEquals(1, swagger.getDefinitions().keySet().stream().filter(k -> k.startsWith("outWrapper")).count());
+    }
+
+    private Path rpc(String output) {
+        Operation post = new Operation().tag("mod");
+        post.response(200, new Response().schema(new RefProperty(output)));
+        return new Path().post(post);
+    }
 }
@@ -0,0 +1,26 @@
+package com.mrv.yangtools.codegen.impl.postprocessor;
+
+import io.swagger.models.ComposedModel;
+import io.swagger.models.ModelImpl;
+import io.swagger.models.RefModel;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class SingleParentInheritenceModelTest extends AbstractWithSwagger {
+
+    @Test
+    public void singleParentLeft() {
+        new SingleParentInheritenceModel().accept(swagger);
+
+        ComposedModel b = (ComposedModel) swagger.getDefinitions().get("b");
+        // both parents are referenced by three types, the first in order wins
+        assertEquals("Parent1", ((RefModel) b.getParent()).getSimpleRef());
+        ModelImpl unpacked = (ModelImpl) b.getChild();
+        assertTrue(unpacked.getProperties().containsKey("propE"));
+        assertEquals(1, ReferenceGraph.of(swagger).references("b").size());
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.common;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class FileSinkTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void contentWrittenOnCommit() throws IOException {
+        Path target = folder.getRoot().toPath().resolve("out/target.yaml");
+        char[] large = new char[3 << 20];
+        Arrays.fill(large, 'x');
+        String content = new String(large);
+
+        try(FileSink sink = FileSink.open(target)) {
+            try(Writer writer = sink.writer()) {
+                writer.write(content);
+            }
+            assertFalse(Files.exists(target));
+            assertTrue(sink.commit());
+        }
+
+        assertEquals(content, read(target));
+        assertEquals(Collections.singletonList("target.yaml"), list(target.getParent()));
+    }
+
+    @Test
+    public void failedRunLeavesTargetUntouched() throws IOException {
+        Path target = write("target.yaml", "old");
+
+        try(FileSink sink = FileSink.open(target)) {
+            try(Writer writer = sink.writer()) {
+                writer.write("new");
+            }
+            // generation failed, no commit
+        }
+
+        assertEquals("old", read(target));
+        assertEquals(Collections.singletonList("target.yaml"), list(folder.getRoot().toPath()));
+    }
+
+    @Test
+    public void unchangedContentKeepsModificationTime() throws IOException {
+        Path target = write("target.yaml", "same");
+        FileTime modified = FileTime.from(Files.getLastModifiedTime(target).toMillis() - TimeUnit.HOURS.toMillis(1), TimeUnit.MILLISECONDS);
+        Files.setLastModifiedTime(target, modified);
+
+        try(FileSink sink = FileSink.open(target)) {
+            try(Writer writer = sink.writer()) {
+                writer.write("same");
+            }
+            assertFalse(sink.commit());
+        }
+
+        assertEquals(modified, Files.getLastModifiedTime(target));
+        assertEquals(Collections.singletonList("target.yaml"), list(folder.getRoot().toPath()));
+    }
+
+    @Test
+    public void temporaryFileRemovedWhenCommitFails() throws IOException {
+        // target cannot be replaced by a file
+        Path target = folder.newFolder("target").toPath();
+        write("target/content.yaml", "content");
+
+        FileSink sink = FileSink.open(target);
+        try(Writer writer = sink.writer()) {
+            writer.write("new");
+        }
+        try {
+            sink.commit();
+            fail("target directory replaced");
+        } catch (IOException expected) {
+            // target not replaced
+        }
+
+        assertEquals(Collections.singletonList("target"), list(folder.getRoot().toPath()));
+        assertEquals("content", read(target.resolve("content.yaml")));
+    }
+
+    private Path write(String name, String content) throws IOException {
+        Path path = folder.getRoot().toPath().resolve(name);
+        Files.write(path, content.getBytes(StandardCharsets.UTF_8));
+        return path;
+    }
+
+    private static String read(Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+
+    private static java.util.List<String> list(Path dir) {
+        String[] names = dir.toFile().list();
+        Arrays.sort(names);
+        return Arrays.asList(names);
+    }
+}
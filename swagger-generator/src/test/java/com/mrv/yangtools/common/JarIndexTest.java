@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.common;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class JarIndexTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void yangEntriesListed() throws IOException {
+        Path jar = jar("a.jar", "b.yang", "META-INF/MANIFEST.MF", "yang/a.yang", "yang/a.txt");
+
+        assertEquals(Arrays.asList("/b.yang", "/yang/a.yang"), new JarIndex(null).entries(jar));
+    }
+
+    @Test
+    public void jarWithoutYangEntries() throws IOException {
+        Path jar = jar("a.jar", "META-INF/MANIFEST.MF");
+
+        assertEquals(Collections.emptyList(), new JarIndex(null).entries(jar));
+    }
+
+    @Test
+    public void unchangedJarNotScanned() throws IOException {
+        Path jar = jar("a.jar", "a.yang");
+        Path file = folder.getRoot().toPath().resolve("index.properties");
+        index(file, jar, "/indexed.yang");
+
+        assertEquals(Collections.singletonList("/indexed.yang"), new JarIndex(file).entries(jar));
+    }
+
+    @Test
+    public void changedJarScannedAgain() throws IOException {
+        Path jar = jar("a.jar", "a.yang");
+        JarIndex index = new JarIndex(null);
+        assertEquals(Collections.singletonList("/a.yang"), index.entries(jar));
+
+        jar("a.jar", "a.yang", "b.yang");
+        assertEquals(Arrays.asList("/a.yang", "/b.yang"), index.entries(jar));
+    }
+
+    @Test
+    public void indexSavedToFile() throws IOException {
+        Path jar = jar("a.jar", "a.yang");
+        Path file = folder.getRoot().toPath().resolve("index.properties");
+        JarIndex index = new JarIndex(file);
+        index.entries(jar);
+        index.save();
+
+        Properties saved = new Properties();
+        try(InputStream in = Files.newInputStream(file)) {
+            saved.load(in);
+        }
+        assertTrue(saved.getProperty(jar.toAbsolutePath().normalize().toString()).endsWith("|/a.yang"));
+    }
+
+    @Test
+    public void indexInMemoryNotSaved() throws IOException {
+        JarIndex index = new JarIndex(null);
+        index.entries(jar("a.jar", "a.yang"));
+        index.save();
+
+        assertArrayEquals(new String[] {"a.jar"}, folder.getRoot().list());
+    }
+
+    private Path jar(String name, String... entries) throws IOException {
+        Path jar = folder.getRoot().toPath().resolve(name);
+        try(ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            for(String entry : entries) {
+                out.putNextEntry(new ZipEntry(entry));
+                out.write(("// " + entry).getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private static void index(Path file, Path jar, String entries) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(jar, BasicFileAttributes.class);
+        Properties index = new Properties();
+        index.setProperty(jar.toAbsolutePath().normalize().toString(),
+                attributes.size() + "|" + attributes.lastModifiedTime().toMillis() + "|" + entries);
+        try(OutputStream out = Files.newOutputStream(file)) {
+            index.store(out, null);
+        }
+    }
+}
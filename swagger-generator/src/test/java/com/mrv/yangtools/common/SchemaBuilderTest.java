@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.common;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.opendaylight.yangtools.yang.model.api.Module;
+import org.opendaylight.yangtools.yang.model.api.SchemaContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class SchemaBuilderTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void sourcesFoundInJar() throws Exception {
+        Path jar = jar("example.jar", "base.yang", "extension-of-base.yang", "extension-of-extension.yang");
+
+        SchemaContext ctx = new SchemaBuilder().jarIndex(null).add(jar).build();
+
+        assertEquals(names("base", "extension-of-base", "extension-of-extension"), names(ctx));
+    }
+
+    @Test
+    public void sourcesFoundInJarsAndDirectories() throws Exception {
+        Path jar = jar("base.jar", "base.yang");
+        Path dir = folder.newFolder("yang").toPath();
+        Files.copy(resource("/example/extension-of-base.yang"), dir.resolve("extension-of-base.yang"));
+        Path notFound = folder.getRoot().toPath().resolve("missing");
+
+        SchemaContext ctx = ContextHelper.getFromDir(Stream.of(jar, dir, notFound), SchemaBuilder.defaultYangMatcher());
+
+        assertEquals(names("base", "extension-of-base"), names(ctx));
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void unreadableJarReported() throws Exception {
+        Path jar = folder.getRoot().toPath().resolve("broken.jar");
+        Files.write(jar, "not a jar".getBytes());
+
+        ContextHelper.getFromDir(jar, SchemaBuilder.defaultYangMatcher());
+    }
+
+    @Test
+    public void sameSourceInTwoDirectoriesParsedOnce() throws Exception {
+        Path dir = copy("/example/base.yang", "/example/extension-of-base.yang");
+        Path other = folder.newFolder("other").toPath();
+        Files.copy(dir.resolve("base.yang"), other.resolve("base.yang"));
+
+        SchemaContext ctx = new SchemaBuilder().add(dir).add(other).build();
+
+        assertEquals(names("base", "extension-of-base"), names(ctx));
+    }
+
+    @Test
+    public void restrictedToModuleWithAugmentingModules() throws Exception {
+        Path dir = copy("/example/base.yang", "/example/extension-of-base.yang", "/example/extension-of-extension.yang",
+                "/rpc-basic.yang", "/rpc-augmentations.yang");
+
+        assertEquals(names("base", "extension-of-base", "extension-of-extension"),
+                names(new SchemaBuilder().add(dir).restrictTo(Collections.singleton("base")).build()));
+        assertEquals(names("rpc-basic", "rpc-augmentations"),
+                names(new SchemaBuilder().add(dir).restrictTo(Collections.singleton("rpc-basic")).build()));
+    }
+
+    @Test
+    public void restrictedToModuleWithImportedModules() throws Exception {
+        Path dir = copy("/example/base.yang", "/example/extension-of-base.yang", "/rpc-basic.yang");
+
+        assertEquals(names("base", "extension-of-base"),
+                names(new SchemaBuilder().add(dir).restrictTo(Collections.singleton("extension-of-base")).build()));
+    }
+
+    @Test
+    public void restrictedToModuleWithSubmodules() throws Exception {
+        Path dir = folder.newFolder("yang").toPath();
+        source(dir, "main", "module main { namespace urn:main; prefix m; include sub; container top { uses g; } }");
+        source(dir, "sub", "submodule sub { belongs-to main { prefix m; } grouping g { leaf x { type string; } } }");
+        source(dir, "other", "module other { namespace urn:other; prefix o; }");
+
+        SchemaContext ctx = new SchemaBuilder().add(dir).restrictTo(Collections.singleton("main")).build();
+
+        assertEquals(names("main"), names(ctx));
+        assertEquals(names("sub"), ctx.getModules().iterator().next().getSubmodules().stream()
+                .map(Module::getName).collect(Collectors.toSet()));
+    }
+
+    @Test
+    public void importedRevisionSelected() throws Exception {
+        Path dir = folder.newFolder("yang").toPath();
+        source(dir, "dep@2017-01-01", "module dep { namespace urn:dep; prefix d; revision 2017-01-01; }");
+        source(dir, "dep@2018-01-01", "module dep { namespace urn:dep; prefix d; revision 2018-01-01; }");
+        source(dir, "user", "module user { namespace urn:user; prefix u; import dep { prefix d; revision-date 2017-01-01; } }");
+
+        SchemaContext ctx = new SchemaBuilder().add(dir).restrictTo(Collections.singleton("user")).build();
+
+        assertEquals(Collections.singletonList("dep@2017-01-01"), ctx.getModules().stream()
+                .filter(m -> m.getName().equals("dep"))
+                .map(m -> m.getName() + "@" + m.getQNameModule().getFormattedRevision())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    public void unknownModuleRestrictsToNothing() throws Exception {
+        Path dir = copy("/example/base.yang", "/rpc-basic.yang");
+
+        assertEquals(names(), names(new SchemaBuilder().add(dir).restrictTo(Collections.singleton("missing")).build()));
+    }
+
+    private Path copy(String... resources) throws IOException, URISyntaxException {
+        Path dir = folder.newFolder("yang").toPath();
+        for(String r : resources) {
+            Path source = resource(r);
+            Files.copy(source, dir.resolve(source.getFileName().toString()));
+        }
+        return dir;
+    }
+
+    private static void source(Path dir, String name, String source) throws IOException {
+        Files.write(dir.resolve(name + ".yang"), source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path jar(String name, String... sources) throws IOException, URISyntaxException {
+        Path jar = folder.getRoot().toPath().resolve(name);
+        try(ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(jar))) {
+            out.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            out.closeEntry();
+            for(String source : sources) {
+                out.putNextEntry(new ZipEntry("yang/" + source));
+                Files.copy(resource("/example/" + source), out);
+                out.closeEntry();
+            }
+        }
+        return jar;
+    }
+
+    private Path resource(String name) throws URISyntaxException {
+        return Paths.get(getClass().getResource(name).toURI());
+    }
+
+    private static Set<String> names(String... names) {
+        return new HashSet<>(Arrays.asList(names));
+    }
+
+    private static Set<String> names(SchemaContext ctx) {
+        return ctx.getModules().stream().map(Module::getName).collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2018 Amartus. All rights reserved.
+ *  This program and the accompanying materials are made available under the
+ *  terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ *  and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *      Bartosz Michalik <bartosz.michalik@amartus.com>
+ */
+package com.mrv.yangtools.common;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+
+import static org.junit.Assert.*;
+
+/**
+ * @author bartosz.michalik@amartus.com
+ */
+public class YangHeaderTest {
+
+    @Test
+    public void commentsSkipped() throws IOException {
+        YangHeader header = read(
+                "// module commented { }\n" +
+                "module /* name follows */ a {\n" +
+                "  prefix a; // import line-comment { prefix l; }\n" +
+                "  /* import block-comment { prefix b; }\n" +
+                "     revision 2000-01-01; */\n" +
+                "  import b { prefix b; }\n" +
+                "  revision 2018-01-01 { description \"// not a comment\"; }\n" +
+                "}\n");
+
+        assertEquals("a", header.getName());
+        assertFalse(header.isSubmodule());
+        assertEquals(Collections.singleton("b"), header.getImports().keySet());
+        assertEquals("2018-01-01", header.getRevision());
+    }
+
+    @Test
+    public void quotedStringsConcatenated() throws IOException {
+        YangHeader header = read(
+                "module \"quo\" + \"ted\" {\n" +
+                "  prefix q;\n" +
+                "  import \"imp\"\n" +
+                "      + 'orted' { prefix \"i\"; revision-date '2018-01-01'; }\n" +
+                "  augment \"/i:top\" +\n" +
+                "      \"/i:child\" { leaf x { type string; } }\n" +
+                "}\n");
+
+        assertEquals("quoted", header.getName());
+        assertEquals(Collections.singletonMap("imported", "2018-01-01"), header.getImports());
+        assertEquals(Collections.singleton("imported"), header.getAugmented());
+    }
+
+    @Test
+    public void singleQuotedStringsNotParsed() throws IOException {
+        YangHeader header = read(
+                "module a {\n" +
+                "  prefix a;\n" +
+                "  description 'braces { and } \"quotes\" ; and // are text';\n" +
+                "  import b { prefix b; description 'import c { prefix c; }'; }\n" +
+                "}\n");
+
+        assertEquals(Collections.singleton("b"), header.getImports().keySet());
+    }
+
+    @Test
+    public void submoduleBelongsToModule() throws IOException {
+        YangHeader header = read(
+                "submodule s {\n" +
+                "  belongs-to m { prefix m; }\n" +
+                "  include s2;\n" +
+                "  include s3 { revision-date 2018-01-01; }\n" +
+                "}\n");
+
+        assertEquals("s", header.getName());
+        assertTrue(header.isSubmodule());
+        assertEquals("m", header.getBelongsTo());
+        assertEquals(new LinkedHashSet<>(Arrays.asList("s2", "s3")), header.getIncludes());
+    }
+
+    @Test
+    public void augmentedAndDeviatedViaPrefix() throws IOException {
+        YangHeader header = read(
+                "module a {\n" +
+                "  prefix a;\n" +
+                "  import augmented { prefix aug; }\n" +
+                "  import deviated { prefix dev; }\n" +
+                "  import used { prefix u; }\n" +
+                "  augment /aug:top { leaf x { type string; } }\n" +
+                "  deviation \"/dev:top/dev:leaf\" { deviate not-supported; }\n" +
+                "  augment \"/a:local\" { leaf y { type string; } }\n" +
+                "  grouping g { leaf z { type string; } }\n" +
+                "  container c { uses u:g { augment \"u:nested\" { leaf w { type string; } } } }\n" +
+                "}\n");
+
+        assertEquals(new HashSet<>(Arrays.asList("augmented", "deviated")), header.getAugmented());
+    }
+
+    @Test
+    public void latestRevision() throws IOException {
+        YangHeader header = read(
+                "module a {\n" +
+                "  prefix a;\n" +
+                "  revision 2017-01-01;\n" +
+                "  revision \"2018-02-01\" { description \"latest\"; }\n" +
+                "  revision 2016-01-01;\n" +
+                "}\n");
+
+        assertEquals("2018-02-01", header.getRevision());
+    }
+
+    @Test
+    public void hashOfContent() throws IOException {
+        String source = "module a { prefix a; }";
+
+        assertEquals(read(source).getHash(), read(source).getHash());
+        assertNotEquals(read(source).getHash(), read(source + "\n").getHash());
+    }
+
+    @Test(expected = IOException.class)
+    public void notModule() throws IOException {
+        read("// just a comment\n");
+    }
+
+    private static YangHeader read(String source) throws IOException {
+        return YangHeader.read(Paths.get("test.yang"), source.getBytes(StandardCharsets.UTF_8));
+    }
+}
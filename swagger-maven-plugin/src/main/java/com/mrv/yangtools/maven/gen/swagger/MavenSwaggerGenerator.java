@@ -12,11 +12,18 @@
 package com.mrv.yangtools.maven.gen.swagger;
 
 import com.google.common.base.Preconditions;
+import com.mrv.yangtools.codegen.PathFilter;
+import com.mrv.yangtools.codegen.ModuleCache;
 import com.mrv.yangtools.codegen.PathHandlerBuilder;
 import com.mrv.yangtools.codegen.SwaggerGenerator;
+import com.mrv.yangtools.codegen.impl.ShardedSwaggerWriter;
 import com.mrv.yangtools.codegen.impl.path.AbstractPathHandlerBuilder;
 import com.mrv.yangtools.codegen.impl.path.SegmentTagGenerator;
 import com.mrv.yangtools.codegen.impl.path.odl.ODLPathHandlerBuilder;
+import com.mrv.yangtools.codegen.impl.postprocessor.DeduplicateDefinitions;
+import com.mrv.yangtools.codegen.impl.postprocessor.ExtractSharedDefinitions;
+import com.mrv.yangtools.common.FileSink;
+import com.mrv.yangtools.common.SchemaBuilder;
 
 import org.apache.maven.project.MavenProject;
 import org.opendaylight.yangtools.yang.model.api.Module;
@@ -28,7 +35,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -39,6 +45,12 @@ import java.util.stream.Collectors;
  * <ul>
  *     <li><code>generator-mime</code> - to specify comma-separated mime types (e.g. xml,json)</li>
  *     <li><code>generator-elements</code> - comma-separated list of {@link com.mrv.yangtools.codegen.SwaggerGenerator.Elements}
+ *     <li><code>include-paths</code>, <code>exclude-paths</code> - comma-separated data tree paths (globs) to generate or to skip, see {@link PathFilter}</li>
+ *     <li><code>include-modules</code>, <code>exclude-modules</code> - comma-separated module names which nodes are generated or skipped</li>
+ *     <li><code>shared-definitions</code> - to emit responses and parameters repeated across operations once (true/false)
+ *     <li><code>deduplicate</code> - to merge definitions with the same structure (true/false)
+ *     <li><code>cache-dir</code> - directory to keep paths and definitions generated for each module in,
+ *     to reuse them for unchanged modules; sources are hashed from <code>yang-dir</code> (<code>src/main/yang</code> by default)</li>
  * </ul>
  * @author cmurch@mrv.com
  * @author bartosz.michalik@amartus.com
@@ -77,6 +89,11 @@ public class MavenSwaggerGenerator implements BasicCodeGenerator, BuildContextAw
         
         String pathHandler = getPathHandlerFormat();
         String useNamespaces = getAdditionalConfigOrDefault("use-namespaces", "false");
+        String sharedDefinitions = getAdditionalConfigOrDefault("shared-definitions", "false");
+        String deduplicate = getAdditionalConfigOrDefault("deduplicate", "false");
+        String splitModules = getAdditionalConfigOrDefault("split-modules", "false");
+        String shardBy = getAdditionalConfigOrDefault("shard-by", null);
+        String cacheDir = getAdditionalConfigOrDefault("cache-dir", null);
 
         AbstractPathHandlerBuilder pathHandlerBuilder;
         
@@ -90,15 +107,46 @@ public class MavenSwaggerGenerator implements BasicCodeGenerator, BuildContextAw
         	pathHandlerBuilder = pathHandlerBuilder.useModuleName();
         }
 
-        try(FileWriter fileWriter = new FileWriter(output)) {
-            SwaggerGenerator generator = new SwaggerGenerator(schemaContext, modules)
-                    .format(format())
-                    .tagGenerator(new SegmentTagGenerator())
-                    .pathHandler(pathHandlerBuilder)
-            		.version(version);
-            mimes.forEach(m -> { generator.consumes("application/"+ m); generator.produces("application/"+ m);});
-            generator.elements(elements.toArray(new SwaggerGenerator.Elements[elements.size()]));
-            generator.generate(fileWriter);
+        SwaggerGenerator generator = new SwaggerGenerator(schemaContext, modules)
+                .format(format())
+                .tagGenerator(new SegmentTagGenerator())
+                .pathHandler(pathHandlerBuilder)
+                .pathFilter(pathFilter())
+                .release(true)
+                .version(version);
+        mimes.forEach(m -> { generator.consumes("application/"+ m); generator.produces("application/"+ m);});
+        generator.elements(elements.toArray(new SwaggerGenerator.Elements[elements.size()]));
+        if(cacheDir != null) {
+            Map<String, String> hashes = new HashMap<>();
+            File yangDir = new File(projectBaseDir, getAdditionalConfigOrDefault("yang-dir", "src/main/yang"));
+            if(yangDir.isDirectory()) {
+                hashes.putAll(new SchemaBuilder().add(yangDir.toPath()).sourceHashes());
+            }
+            ModuleCache.sourceHashes(schemaContext).forEach(hashes::putIfAbsent);
+            generator.cache(new ModuleCache(new File(cacheDir).toPath(), hashes).configuration(cacheConfiguration()));
+        }
+        if(deduplicate.equals("true")) {
+            generator.appendReplacement(new DeduplicateDefinitions());
+        }
+        if(sharedDefinitions.equals("true")) {
+            generator.appendPostProcessor(new ExtractSharedDefinitions());
+        }
+
+        if(shardBy != null) {
+            return generator.generate(new File(outputBaseDir, swaggerName).toPath(), ShardedSwaggerWriter.Sharding.of(shardBy)).stream()
+                    .map(java.nio.file.Path::toFile)
+                    .collect(Collectors.toList());
+        }
+
+        if(splitModules.equals("true")) {
+            return generator.generate(new File(outputBaseDir, swaggerName).toPath()).stream()
+                    .map(java.nio.file.Path::toFile)
+                    .collect(Collectors.toList());
+        }
+
+        try(FileSink sink = FileSink.open(output.toPath())) {
+            generator.generate(sink.channel());
+            sink.commit();
         }
 
         return Collections.singleton(output);
@@ -126,6 +174,29 @@ public class MavenSwaggerGenerator implements BasicCodeGenerator, BuildContextAw
 
     }
     
+    /**
+     * @return plugin configuration that might influence generation of modules
+     */
+    private String cacheConfiguration() {
+        return mavenProject.getVersion() + "\n" + new TreeMap<>(additionalConfig);
+    }
+
+    private PathFilter pathFilter() {
+        PathFilter filter = new PathFilter();
+        listConfig("include-paths").forEach(filter::include);
+        listConfig("exclude-paths").forEach(filter::exclude);
+        listConfig("include-modules").forEach(filter::includeModule);
+        listConfig("exclude-modules").forEach(filter::excludeModule);
+        return filter;
+    }
+
+    private List<String> listConfig(String key) {
+        return Arrays.stream(getAdditionalConfigOrDefault(key, "").split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .collect(Collectors.toList());
+    }
+
     private String getPathHandlerFormat() {
         String stringFormat = getAdditionalConfigOrDefault("path-format", "rfc8040");
         if(stringFormat.equals("odl")) {
@@ -138,7 +209,7 @@ public class MavenSwaggerGenerator implements BasicCodeGenerator, BuildContextAw
     private String getFileExtension() {
         String stringFormat = additionalConfig.get("swagger-format");
         if(stringFormat != null) {
-        	return stringFormat;
+        	return format().extension();
         } else {
            return "swagger";
         }
@@ -146,11 +217,9 @@ public class MavenSwaggerGenerator implements BasicCodeGenerator, BuildContextAw
     
     private SwaggerGenerator.Format format() {
         String stringFormat = getAdditionalConfigOrDefault("swagger-format", DEFAULT_OUTPUT_FORMAT);
-        if(stringFormat.equalsIgnoreCase("json")) {
-            return SwaggerGenerator.Format.JSON;
-        } else if(stringFormat.equalsIgnoreCase("yaml")) {
-            return SwaggerGenerator.Format.YAML;
-        } else {
+        try {
+            return SwaggerGenerator.Format.valueOf(stringFormat.toUpperCase().replace('-', '_'));
+        } catch (IllegalArgumentException e) {
             throw new IllegalStateException("cannot output format " + stringFormat);
         }
     }